@@ -0,0 +1,65 @@
+package org.sweetie.aichat.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sweetie.aichat.service.ChatServiceFixture;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (de)serialization of the API records with an ObjectMapper configured like Spring Boot's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private ChatResponse chatResponse;
+    private ErrorResponse errorResponse;
+    private byte[] chatRequestJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        chatResponse = new ChatResponse(ChatServiceFixture.REPLY, "OPENAI", "What is a stop loss?", System.currentTimeMillis());
+        errorResponse = new ErrorResponse(503, "AI_SERVICE_UNAVAILABLE", "AI service is unavailable", Instant.now());
+        chatRequestJson = objectMapper.writeValueAsBytes(new ChatRequest("What is a stop loss?", "openai", false));
+    }
+
+    @Benchmark
+    public byte[] serializeChatResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(chatResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeErrorResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(errorResponse);
+    }
+
+    @Benchmark
+    public ChatRequest deserializeChatRequest() throws IOException {
+        return objectMapper.readValue(chatRequestJson, ChatRequest.class);
+    }
+}
@@ -0,0 +1,70 @@
+package org.sweetie.aichat.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.sweetie.aichat.dto.ErrorResponse;
+import org.sweetie.aichat.service.ChatMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exception-to-{@link ErrorResponse} mapping in {@link GlobalExceptionHandler}, with and
+ * without the cost of creating the exception.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private GlobalExceptionHandler handler;
+
+    private AIServiceException aiServiceException;
+    private RateLimitExceededException rateLimitException;
+    private IllegalArgumentException badRequestException;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler(new ChatMetrics(new SimpleMeterRegistry()));
+        aiServiceException = new AIServiceException("AI service is unavailable", new IllegalStateException("upstream"));
+        rateLimitException = new RateLimitExceededException("Rate limit exceeded for openai", Duration.ofMillis(1500));
+        badRequestException = new IllegalArgumentException("Unsupported LLM type: unknown");
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> aiServiceException() {
+        return handler.handleAIServiceException(aiServiceException);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> rateLimited() {
+        return handler.handleRateLimitExceeded(rateLimitException);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> badRequest() {
+        return handler.handleBadRequest(badRequestException);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> throwAndHandle() {
+        try {
+            throw new AIServiceException("AI service is unavailable", new IllegalStateException("upstream"));
+        } catch (AIServiceException ex) {
+            return handler.handleAIServiceException(ex);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.sweetie.aichat.loadtest;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are sent at a constant arrival rate regardless of how
+ * quickly earlier ones complete, each on its own virtual thread. A slow server therefore
+ * builds up concurrency instead of silently lowering the offered load, and every request's
+ * latency is measured from its scheduled send time.
+ */
+public class LoadGenerator implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(executor)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * Runs the scenario at {@code ratePerSecond} for {@code duration} and waits for every
+     * request in flight to complete.
+     */
+    public ScenarioResult run(Scenario scenario, double ratePerSecond, Duration duration) throws InterruptedException {
+
+        ScenarioResult result = new ScenarioResult(scenario, ratePerSecond);
+        long intervalNanos = (long) (1e9 / ratePerSecond);
+        long requests = (long) (duration.toNanos() / (double) intervalNanos);
+
+        try (ExecutorService inFlight = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            for (long n = 0; n < requests; n++) {
+                long scheduled = start + n * intervalNanos;
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long sequence = n;
+                inFlight.execute(() -> send(scenario, sequence, scheduled, result));
+            }
+            inFlight.shutdown();
+            if (!inFlight.awaitTermination(2, TimeUnit.MINUTES)) {
+                inFlight.shutdownNow();
+            }
+            result.finish(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private void send(Scenario scenario, long sequence, long scheduledNanos, ScenarioResult result) {
+        long sentNanos = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(
+                    scenario.request().apply(sequence), HttpResponse.BodyHandlers.ofInputStream());
+            long firstByteNanos;
+            try (InputStream body = response.body()) {
+                body.read();
+                firstByteNanos = System.nanoTime();
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+            result.recordSuccess(scheduledNanos, sentNanos, firstByteNanos, System.nanoTime(), response.statusCode());
+        } catch (Exception e) {
+            result.recordFailure();
+        }
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+        executor.close();
+    }
+}
@@ -0,0 +1,125 @@
+package org.sweetie.aichat.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.sweetie.aichat.MultiLlmApplication;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * End-to-end load test: boots the application with the {@code simulator} profile (or targets
+ * {@code -Dloadtest.target}), drives each scenario at a constant arrival rate, prints latency
+ * percentiles and exits non-zero when a threshold is breached.
+ * <p>
+ * Settings are system properties:
+ * <table>
+ *   <tr><th>Property</th><th>Default</th></tr>
+ *   <tr><td>loadtest.target</td><td>embedded application on loadtest.port</td></tr>
+ *   <tr><td>loadtest.port</td><td>18100</td></tr>
+ *   <tr><td>loadtest.rate</td><td>50 requests/s per scenario</td></tr>
+ *   <tr><td>loadtest.warmup</td><td>10 seconds per scenario</td></tr>
+ *   <tr><td>loadtest.duration</td><td>30 seconds per scenario</td></tr>
+ *   <tr><td>loadtest.chat.max-p99-ms</td><td>1500</td></tr>
+ *   <tr><td>loadtest.stream.max-first-byte-p99-ms</td><td>500</td></tr>
+ *   <tr><td>loadtest.error.max-p99-ms</td><td>100</td></tr>
+ *   <tr><td>loadtest.max-error-rate</td><td>0.01</td></tr>
+ *   <tr><td>loadtest.min-throughput-ratio</td><td>0.95 of the target rate</td></tr>
+ * </table>
+ */
+public final class LoadTest {
+
+    private static final Path REPORT_DIRECTORY = Path.of("target", "loadtest");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "50"));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+        String target = System.getProperty("loadtest.target");
+        int port = Integer.getInteger("loadtest.port", 18100);
+
+        ConfigurableApplicationContext application = target == null ? startSimulatedApplication(port) : null;
+        URI baseUri = URI.create(target == null ? "http://localhost:" + port : target);
+
+        List<String> violations = new ArrayList<>();
+        try (LoadGenerator generator = new LoadGenerator()) {
+            for (Scenario scenario : List.of(
+                    Scenario.chat(baseUri), Scenario.stream(baseUri), Scenario.validationError(baseUri))) {
+
+                generator.run(scenario, rate, warmup);
+                ScenarioResult result = generator.run(scenario, rate, duration);
+
+                result.report(System.out);
+                result.writeDistribution(REPORT_DIRECTORY);
+                violations.addAll(check(result));
+            }
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+
+        if (!violations.isEmpty()) {
+            System.out.println("\nLoad test FAILED:");
+            violations.forEach(violation -> System.out.println("  - " + violation));
+            System.exit(1);
+        }
+        System.out.println("\nLoad test passed; distributions written to " + REPORT_DIRECTORY.toAbsolutePath());
+    }
+
+    /**
+     * Simulated upstreams are tuned fast so the run measures this service rather than the
+     * fake providers. The local rate limiter and the adaptive concurrency limit are off, so
+     * neither sheds the offered load and the bulkhead limits apply as configured.
+     */
+    private static ConfigurableApplicationContext startSimulatedApplication(int port) {
+        return new SpringApplicationBuilder(MultiLlmApplication.class)
+                .run("--spring.profiles.active=simulator",
+                        "--server.port=" + port,
+                        "--chat.rate-limit.enabled=false",
+                        "--chat.concurrency-limit.enabled=false",
+                        "--simulator.defaults.first-token-latency=50ms",
+                        "--simulator.defaults.latency-sigma=0.3",
+                        "--simulator.defaults.tokens-per-second=1000");
+    }
+
+    private static List<String> check(ScenarioResult result) {
+
+        List<String> violations = new ArrayList<>();
+        String name = result.scenario().name();
+
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+        if (result.errorRate() > maxErrorRate) {
+            violations.add("%s error rate %.2f%% > %.2f%%".formatted(name, result.errorRate() * 100, maxErrorRate * 100));
+        }
+
+        double minThroughputRatio = Double.parseDouble(System.getProperty("loadtest.min-throughput-ratio", "0.95"));
+        if (result.throughput() < result.targetRate() * minThroughputRatio) {
+            violations.add("%s throughput %.1f req/s < %.0f%% of %.1f req/s"
+                    .formatted(name, result.throughput(), minThroughputRatio * 100, result.targetRate()));
+        }
+
+        String latencyProperty = result.scenario().streaming() ? "max-first-byte-p99-ms" : "max-p99-ms";
+        double p99 = result.scenario().streaming() ? result.firstByteMillis(99) : result.correctedMillis(99);
+        String limit = System.getProperty("loadtest." + name + "." + latencyProperty, defaultP99Limit(name));
+        if (p99 > Double.parseDouble(limit)) {
+            violations.add("%s p99 %.1f ms > %s ms (loadtest.%s.%s)".formatted(name, p99, limit, name, latencyProperty));
+        }
+        return violations;
+    }
+
+    private static String defaultP99Limit(String scenario) {
+        return switch (scenario) {
+            case "chat" -> "1500";
+            case "stream" -> "500";
+            default -> "100";
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package org.sweetie.aichat.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.function.LongFunction;
+
+/**
+ * One kind of request the load generator fires, with the status it must answer with.
+ *
+ * @param name scenario name used in the report and threshold properties
+ * @param request builds the n-th request of the run
+ * @param expectedStatus HTTP status counted as a correct answer
+ * @param streaming whether the response is consumed line by line, recording time to first byte
+ */
+public record Scenario(
+        String name,
+        LongFunction<HttpRequest> request,
+        int expectedStatus,
+        boolean streaming) {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Blocking chat, uncached and with a unique message so neither the cache nor
+     * request coalescing short-circuits the upstream call.
+     */
+    public static Scenario chat(URI baseUri) {
+        return new Scenario("chat",
+                n -> post(baseUri.resolve("/api/chat"), "application/json", body("What is a stop loss? #" + n)),
+                200, false);
+    }
+
+    /**
+     * Server-sent events streaming chat.
+     */
+    public static Scenario stream(URI baseUri) {
+        return new Scenario("stream",
+                n -> post(baseUri.resolve("/api/chat/stream"), "text/event-stream", body("Explain position sizing #" + n)),
+                200, true);
+    }
+
+    /**
+     * Validation error path: a blank message must be rejected with 400 without reaching a provider.
+     */
+    public static Scenario validationError(URI baseUri) {
+        return new Scenario("error",
+                n -> post(baseUri.resolve("/api/chat"), "application/json", "{\"message\":\" \"}"),
+                400, false);
+    }
+
+    private static String body(String message) {
+        return "{\"message\":\"" + message + "\",\"cache\":false}";
+    }
+
+    private static HttpRequest post(URI uri, String accept, String json) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", accept)
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
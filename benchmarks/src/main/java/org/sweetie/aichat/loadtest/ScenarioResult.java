@@ -0,0 +1,131 @@
+package org.sweetie.aichat.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counts of one scenario run.
+ * <p>
+ * {@code corrected} measures from the moment a request was <em>scheduled</em> to be sent, so
+ * time a request spent queued behind a stalled generator or server counts against the
+ * latency (coordinated-omission correction). {@code uncorrected} measures from the moment it
+ * was actually sent, which is what a closed-loop client would report.
+ */
+public class ScenarioResult {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final Scenario scenario;
+    private final double targetRate;
+
+    private final Histogram corrected = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+    private final Histogram uncorrected = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+    private final Histogram firstByte = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder unexpected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private long elapsedNanos;
+
+    public ScenarioResult(Scenario scenario, double targetRate) {
+        this.scenario = scenario;
+        this.targetRate = targetRate;
+    }
+
+    void recordSuccess(long scheduledNanos, long sentNanos, long firstByteNanos, long completedNanos, int status) {
+        sent.increment();
+        if (status != scenario.expectedStatus()) {
+            unexpected.increment();
+        }
+        corrected.recordValue(Math.min(completedNanos - scheduledNanos, MAX_TRACKABLE_NANOS));
+        uncorrected.recordValue(Math.min(completedNanos - sentNanos, MAX_TRACKABLE_NANOS));
+        if (scenario.streaming()) {
+            firstByte.recordValue(Math.min(firstByteNanos - scheduledNanos, MAX_TRACKABLE_NANOS));
+        }
+    }
+
+    void recordFailure() {
+        sent.increment();
+        failed.increment();
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Scenario scenario() {
+        return scenario;
+    }
+
+    /**
+     * @return completed requests per second over the measured phase
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : corrected.getTotalCount() * 1e9 / elapsedNanos;
+    }
+
+    public double targetRate() {
+        return targetRate;
+    }
+
+    /**
+     * @return share of requests that failed at transport level or answered with an unexpected status
+     */
+    public double errorRate() {
+        long total = sent.sum();
+        return total == 0 ? 0 : (double) (unexpected.sum() + failed.sum()) / total;
+    }
+
+    /**
+     * @return coordinated-omission-corrected latency at the percentile, in milliseconds
+     */
+    public double correctedMillis(double percentile) {
+        return corrected.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    /**
+     * @return coordinated-omission-corrected time to first byte at the percentile, in milliseconds
+     */
+    public double firstByteMillis(double percentile) {
+        return firstByte.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    public void report(PrintStream out) {
+        out.printf("%n== %s: %d requests, %.1f req/s (target %.1f), error rate %.2f%% (%d unexpected status, %d failed)%n",
+                scenario.name(), sent.sum(), throughput(), targetRate, errorRate() * 100, unexpected.sum(), failed.sum());
+        out.printf("   %-22s %10s %10s %10s %10s %10s%n", "latency (ms)", "p50", "p90", "p99", "p99.9", "max");
+        row(out, "corrected", corrected);
+        row(out, "uncorrected", uncorrected);
+        if (scenario.streaming()) {
+            row(out, "first byte (corrected)", firstByte);
+        }
+    }
+
+    /**
+     * Writes the full corrected percentile distribution in HdrHistogram's .hgrm format,
+     * which the HdrHistogram plotter reads.
+     */
+    public void writeDistribution(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(scenario.name() + ".hgrm")))) {
+            corrected.outputPercentileDistribution(out, 1e6);
+        }
+    }
+
+    private static void row(PrintStream out, String label, Histogram histogram) {
+        out.printf("   %-22s %10.1f %10.1f %10.1f %10.1f %10.1f%n", label,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(90) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMaxValue() / 1e6);
+    }
+}
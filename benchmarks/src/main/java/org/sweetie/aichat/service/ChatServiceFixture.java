@@ -0,0 +1,120 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.util.unit.DataSize;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.AdmissionProperties;
+import org.sweetie.aichat.webconfig.BulkheadProperties;
+import org.sweetie.aichat.webconfig.ConcurrencyLimitProperties;
+import org.sweetie.aichat.webconfig.CircuitBreakerProperties;
+import org.sweetie.aichat.webconfig.DeadlineProperties;
+import org.sweetie.aichat.webconfig.HedgingProperties;
+import org.sweetie.aichat.webconfig.RateLimitProperties;
+import org.sweetie.aichat.webconfig.ResponseCacheProperties;
+import org.sweetie.aichat.webconfig.RoutingProperties;
+import org.sweetie.aichat.webconfig.SemanticCacheProperties;
+import org.sweetie.aichat.webconfig.SessionProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Wires a {@link ChatService} by hand, with the production collaborators and
+ * {@link StubChatModel} in place of every provider.
+ */
+public final class ChatServiceFixture {
+
+    public static final String REPLY =
+            "A stop loss is an order that closes a position once the price reaches a set level, "
+                    + "capping the loss on the trade.";
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private ChatServiceFixture() {
+    }
+
+    /**
+     * @param routingMode how unpinned requests pick a provider
+     * @param cacheEnabled whether the response cache is active
+     * @return a ChatService answering from stubs, with a latency model already seeded
+     */
+    public static ChatService chatService(RoutingProperties.Mode routingMode, boolean cacheEnabled) {
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        RoutingProperties routing = new RoutingProperties(
+                routingMode, List.of(LLMType.values()), 0.25, 0.0, 0.2, 256, Duration.ofSeconds(1));
+        ProviderLatencyTracker latencyTracker = new ProviderLatencyTracker(routing);
+        seedLatencies(latencyTracker);
+
+        ChatClientRegistry chatClients = stubRegistry();
+        ResponseCacheProperties cacheProperties = new ResponseCacheProperties(
+                cacheEnabled, DataSize.ofMegabytes(64), 10_000, Duration.ofMinutes(10),
+                new ResponseCacheProperties.Persistent(
+                        false, Path.of("data/response-cache"), DataSize.ofMegabytes(64), 8, Duration.ofHours(24)));
+        SessionProperties sessions = new SessionProperties(
+                true, Duration.ofMinutes(30), 100_000, 4000, 1024, 8192, Map.of(),
+                SessionProperties.Store.HEAP, DataSize.ofMegabytes(256), DataSize.ofMegabytes(1));
+
+        return new ChatService(
+                chatClients,
+                "openai",
+                new ProviderBulkhead(new BulkheadProperties(10_000, Duration.ofSeconds(2), Map.of()),
+                        new AdmissionProperties(1000, 1, Map.of()),
+                        new ConcurrencyLimitProperties(false, ConcurrencyLimitProperties.Algorithm.VEGAS, 1, 10, 0.9, 2),
+                        meterRegistry),
+                new ResponseCache(cacheProperties, new PersistentResponseCache(cacheProperties, meterRegistry),
+                        meterRegistry),
+                new SemanticCache(new SemanticCacheProperties(
+                        false, SemanticCacheProperties.Embedder.HASHING, 0.92, 10_000, Duration.ofHours(1),
+                        16, 200, 64, 0.01, 512), new HashingPromptEmbedder(512), meterRegistry),
+                new RequestCoalescer(true, meterRegistry),
+                routing,
+                new AdaptiveRouter(latencyTracker, routing, chatClients),
+                latencyTracker,
+                new HedgingExecutor(new HedgingProperties(
+                        false, Duration.ofSeconds(2), true, 20, Map.of()), latencyTracker, chatClients, EXECUTOR, meterRegistry),
+                new ProviderCircuitBreaker(new CircuitBreakerProperties(
+                        true, 20, 10, 0.5, Duration.ofSeconds(20), 0.8, Duration.ofSeconds(30), 3, Map.of())),
+                new ProviderRateLimiter(new RateLimitProperties(false, Duration.ofSeconds(1), 512, Map.of())),
+                new DeadlineProperties(Duration.ofSeconds(60), Duration.ofSeconds(120), Map.of()),
+                new ConversationHistory(new InMemoryConversationStore(sessions, meterRegistry), sessions),
+                new ChatMetrics(meterRegistry),
+                EXECUTOR);
+    }
+
+    /**
+     * @return registry whose clients all answer from {@link StubChatModel}
+     */
+    public static ChatClientRegistry stubRegistry() {
+
+        Map<LLMType, ChatClient> clients = new EnumMap<>(LLMType.class);
+        Map<LLMType, String> models = new EnumMap<>(LLMType.class);
+        for (LLMType llmType : LLMType.values()) {
+            String model = llmType.getValue() + "-stub";
+            clients.put(llmType, ChatClient.create(new StubChatModel(model, REPLY)));
+            models.put(llmType, model);
+        }
+        return new ChatClientRegistry(clients, models);
+    }
+
+    /**
+     * Gives each provider a distinct latency profile so auto routing has a real choice to make.
+     */
+    private static void seedLatencies(ProviderLatencyTracker latencyTracker) {
+        long baseMillis = 200;
+        for (LLMType llmType : LLMType.values()) {
+            for (int i = 0; i < 256; i++) {
+                latencyTracker.record(llmType, (baseMillis + i % 50) * 1_000_000L, i % 20 != 0);
+            }
+            baseMillis += 150;
+        }
+    }
+}
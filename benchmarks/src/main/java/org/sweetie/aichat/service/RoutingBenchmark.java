@@ -0,0 +1,84 @@
+package org.sweetie.aichat.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sweetie.aichat.dto.ChatRequest;
+import org.sweetie.aichat.dto.ChatResponse;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.RoutingProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provider resolution in {@link ChatService#resolveLlmType(String)} and the full
+ * {@link ChatService#processChat(ChatRequest)} path against a stubbed upstream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+    private ChatService staticRouting;
+    private ChatService autoRouting;
+    private ChatService cached;
+
+    private ChatRequest uncachedRequest;
+    private ChatRequest cachedRequest;
+
+    @Setup
+    public void setUp() {
+        staticRouting = ChatServiceFixture.chatService(RoutingProperties.Mode.STATIC, false);
+        autoRouting = ChatServiceFixture.chatService(RoutingProperties.Mode.AUTO, false);
+        cached = ChatServiceFixture.chatService(RoutingProperties.Mode.STATIC, true);
+
+        uncachedRequest = new ChatRequest("What is a stop loss?", "openai", false);
+        cachedRequest = new ChatRequest("What is a stop loss?", "openai");
+        cached.processChat(cachedRequest);
+    }
+
+    @Benchmark
+    public LLMType explicitProvider() {
+        return staticRouting.resolveLlmType("openai");
+    }
+
+    @Benchmark
+    public LLMType defaultProvider() {
+        return staticRouting.resolveLlmType(null);
+    }
+
+    @Benchmark
+    public LLMType autoRouting() {
+        return autoRouting.resolveLlmType(null);
+    }
+
+    @Benchmark
+    public void unsupportedProvider(Blackhole blackhole) {
+        try {
+            blackhole.consume(staticRouting.resolveLlmType("unknown"));
+        } catch (IllegalArgumentException ex) {
+            blackhole.consume(ex);
+        }
+    }
+
+    @Benchmark
+    public ChatResponse processChatStubbedUpstream() {
+        return staticRouting.processChat(uncachedRequest);
+    }
+
+    @Benchmark
+    public ChatResponse processChatCacheHit() {
+        return cached.processChat(cachedRequest);
+    }
+}
@@ -0,0 +1,52 @@
+package org.sweetie.aichat.service;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Offline ChatModel answering every prompt with the same canned reply and usage,
+ * so benchmarks exercise the service without network I/O.
+ */
+public class StubChatModel implements ChatModel {
+
+    private final ChatOptions options;
+    private final ChatResponse response;
+
+    /**
+     * @param model model name reported through the default options
+     * @param reply text returned for every prompt
+     */
+    public StubChatModel(String model, String reply) {
+        this.options = ChatOptions.builder().model(model).build();
+        this.response = new ChatResponse(
+                List.of(new Generation(new AssistantMessage(reply))),
+                ChatResponseMetadata.builder()
+                        .model(model)
+                        .usage(new DefaultUsage(12, TokenEstimator.estimate(reply)))
+                        .build());
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.just(response);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return options;
+    }
+}
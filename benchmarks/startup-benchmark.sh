@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+#
+# Compares startup of the application as a plain JVM, a JVM with a CDS archive, a JVM with
+# the trained AOT cache and a GraalVM native image. Each variant is started RUNS times with the simulator profile (no
+# API keys needed); the time until /actuator/health answers UP and the first /api/chat
+# response are measured from process launch.
+#
+# Build first (from the repository root):
+#   mvn package -DskipTests                                   # JVM jar
+#   mvn -Paot-cache package -DskipTests                       # JVM AOT cache from a training run (optional)
+#   mvn -Pnative package -DskipTests -Dnative.profiles=simulator  # native executable (optional)
+#
+# Usage: benchmarks/startup-benchmark.sh [runs]
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RUNS="${1:-5}"
+PORT="${PORT:-18200}"
+JAR="$ROOT/target/mulit-llms-ai-app-1.0-SNAPSHOT.jar"
+NATIVE="$ROOT/target/mulit-llms-ai-app"
+WORK="$ROOT/target/startup"
+APP_ARGS=(--spring.profiles.active=simulator --server.port="$PORT")
+
+now_ms() { date +%s%3N; }
+
+# Launches "$@", waits for health UP and one chat answer, prints "<ready ms> <first chat ms>".
+measure() {
+  local start ready chat pid
+  start=$(now_ms)
+  "$@" "${APP_ARGS[@]}" >"$WORK/last-run.log" 2>&1 &
+  pid=$!
+  until curl -fs "http://localhost:$PORT/actuator/health" 2>/dev/null | grep -q '"UP"'; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "application exited early, see $WORK/last-run.log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  ready=$(( $(now_ms) - start ))
+  curl -fs "http://localhost:$PORT/api/chat?message=warmup&cache=false" >/dev/null
+  chat=$(( $(now_ms) - start ))
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$ready $chat"
+}
+
+# Runs a variant RUNS times and prints its mean startup and first-response times.
+bench() {
+  local name="$1"; shift
+  local ready_total=0 chat_total=0 ready chat
+  for _ in $(seq "$RUNS"); do
+    read -r ready chat < <(measure "$@")
+    ready_total=$(( ready_total + ready ))
+    chat_total=$(( chat_total + chat ))
+  done
+  printf "%-12s %12d %16d\n" "$name" $(( ready_total / RUNS )) $(( chat_total / RUNS ))
+}
+
+[[ -f "$JAR" ]] || { echo "missing $JAR; run mvn package first" >&2; exit 1; }
+mkdir -p "$WORK"
+
+# CDS needs the jar extracted; the archive is dumped by a run that stops right after refresh
+java -Djarmode=tools -jar "$JAR" extract --force --destination "$WORK/extracted" >/dev/null
+EXTRACTED="$WORK/extracted/$(basename "$JAR")"
+java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.context.exit=onRefresh \
+  -jar "$EXTRACTED" "${APP_ARGS[@]}" >/dev/null 2>&1
+
+printf "%-12s %12s %16s   (mean of %d runs)\n" "variant" "ready (ms)" "first chat (ms)" "$RUNS"
+bench "jvm" java -jar "$JAR"
+bench "jvm+cds" java -XX:SharedArchiveFile="$WORK/app.jsa" -jar "$EXTRACTED"
+if [[ -f "$ROOT/target/aot/app.aot" ]]; then
+  bench "jvm+aot" "$ROOT/bin/launch.sh"
+else
+  echo "jvm+aot      skipped: build with mvn -Paot-cache package"
+fi
+if [[ -x "$NATIVE" ]]; then
+  bench "native" "$NATIVE"
+else
+  echo "native       skipped: build with mvn -Pnative package"
+fi
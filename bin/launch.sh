@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+#
+# Starts the application from the jar extracted by "mvn -Paot-cache package", using the JVM
+# AOT cache recorded during the build's training run. The cache is only valid for the same
+# JDK and the same jar, so without it the application starts normally.
+#
+# Usage: bin/launch.sh [application args...]   e.g. bin/launch.sh --spring.profiles.active=prod
+#        APP_DIR=/opt/app bin/launch.sh          (directory holding the extracted jar and app.aot)
+set -euo pipefail
+
+APP_DIR="${APP_DIR:-$(cd "$(dirname "$0")/.." && pwd)/target/aot}"
+JAR="$APP_DIR/mulit-llms-ai-app-1.0-SNAPSHOT.jar"
+CACHE="$APP_DIR/app.aot"
+
+if [[ -f "$CACHE" ]]; then
+  # shellcheck disable=SC2086
+  exec java -XX:AOTCache="$CACHE" ${JAVA_OPTS:-} -jar "$JAR" "$@"
+fi
+
+echo "No AOT cache at $CACHE, starting without it" >&2
+# shellcheck disable=SC2086
+exec java ${JAVA_OPTS:-} -jar "$JAR" "$@"
@@ -2,8 +2,10 @@ package org.sweetie.aichat;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class MultiLlmApplication {
     public static void main(String[] args) {
         SpringApplication.run(MultiLlmApplication.class, args);
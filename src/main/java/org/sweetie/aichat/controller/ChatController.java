@@ -2,19 +2,38 @@ package org.sweetie.aichat.controller;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.sweetie.aichat.dto.BatchChatResult;
 import org.sweetie.aichat.dto.ChatRequest;
 import org.sweetie.aichat.dto.ChatResponse;
+import org.sweetie.aichat.model.Priority;
+import org.sweetie.aichat.service.Admission;
+import org.sweetie.aichat.service.BatchChatService;
+import org.sweetie.aichat.service.ChatMetrics;
 import org.sweetie.aichat.service.ChatService;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
 
 /**
  * REST controller for handling chat requests.
- * Supports both GET and POST endpoints for AI chat interactions.
+ * Supports both GET and POST endpoints for AI chat interactions,
+ * in blocking and Server-Sent Events streaming variants, plus a batch endpoint.
+ * Serves the servlet mode; {@link ReactiveChatController} serves the same API in
+ * reactive mode.
  */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Validated
 @RestController
 @RequestMapping("/api")
@@ -23,14 +42,20 @@ public class ChatController {
     private static final Logger log = LoggerFactory.getLogger(ChatController.class);
 
     private final ChatService chatService;
+    private final BatchChatService batchChatService;
+    private final ChatMetrics metrics;
 
     /**
      * Constructor-based dependency injection for ChatService.
      *
      * @param chatService the service handling chat logic
+     * @param batchChatService the service fanning out batch requests
+     * @param metrics receives errors ending a stream
      */
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, BatchChatService batchChatService, ChatMetrics metrics) {
         this.chatService = chatService;
+        this.batchChatService = batchChatService;
+        this.metrics = metrics;
     }
 
     /**
@@ -38,44 +63,150 @@ public class ChatController {
      *
      * @param message the chat message from the user, cannot be blank
      * @param llm optional AI provider name (e.g., "openai", "ollama")
-     * @return ResponseEntity containing ChatResponse
+     * @param cache set to false to bypass the response cache
+     * @param sessionId optional conversation session the message belongs to
+     * @param timeoutMs optional time budget in milliseconds, capped by configuration
+     * @param priority optional priority class (interactive, standard, batch), interactive by default
+     * @param tenant optional tenant the request counts against
+     * @return ResponseEntity containing ChatResponse, once the call completes
      */
     @GetMapping("/chat")
-    public ResponseEntity<ChatResponse> chatGet(
+    public DeferredResult<ResponseEntity<ChatResponse>> chatGet(
             @NotBlank(message = "Message cannot be empty")
             @RequestParam String message,
-            @RequestParam(required = false) String llm) {
+            @RequestParam(required = false) String llm,
+            @RequestParam(required = false) Boolean cache,
+            @Size(max = 128, message = "Session id cannot be longer than 128 characters")
+            @RequestParam(required = false) String sessionId,
+            @Positive(message = "Timeout must be a positive number of milliseconds")
+            @RequestParam(required = false) Long timeoutMs,
+            @RequestHeader(value = Admission.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
 
-        return processChat(message, llm);
+        return processChat(new ChatRequest(message, llm, cache, sessionId, timeoutMs),
+                Admission.of(priority, tenant, Priority.INTERACTIVE));
     }
 
     /**
      * Handles POST requests for chat.
      *
      * @param request the chat request containing message and optional LLM provider
-     * @return ResponseEntity containing ChatResponse
+     * @param priority optional priority class (interactive, standard, batch), interactive by default
+     * @param tenant optional tenant the request counts against
+     * @return ResponseEntity containing ChatResponse, once the call completes
      */
     @PostMapping("/chat")
-    public ResponseEntity<ChatResponse> chatPost(
-            @Valid @RequestBody ChatRequest request) {
+    public DeferredResult<ResponseEntity<ChatResponse>> chatPost(
+            @Valid @RequestBody ChatRequest request,
+            @RequestHeader(value = Admission.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        return processChat(request, Admission.of(priority, tenant, Priority.INTERACTIVE));
+    }
+
+    /**
+     * Handles GET requests for streaming chat.
+     * Response chunks are pushed to the client as Server-Sent Events as they arrive.
+     *
+     * @param message the chat message from the user, cannot be blank
+     * @param llm optional AI provider name (e.g., "openai", "ollama")
+     * @param sessionId optional conversation session the message belongs to
+     * @param timeoutMs optional time budget in milliseconds, capped by configuration
+     * @param priority optional priority class (interactive, standard, batch), interactive by default
+     * @param tenant optional tenant the request counts against
+     * @return Flux of response chunks, one SSE event per chunk, and an error event if the stream fails
+     */
+    @GetMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> chatStreamGet(
+            @NotBlank(message = "Message cannot be empty")
+            @RequestParam String message,
+            @RequestParam(required = false) String llm,
+            @Size(max = 128, message = "Session id cannot be longer than 128 characters")
+            @RequestParam(required = false) String sessionId,
+            @Positive(message = "Timeout must be a positive number of milliseconds")
+            @RequestParam(required = false) Long timeoutMs,
+            @RequestHeader(value = Admission.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        log.info("Incoming streaming chat request");
+        return StreamEvents.of(chatService.streamChat(new ChatRequest(message, llm, null, sessionId, timeoutMs),
+                Admission.of(priority, tenant, Priority.INTERACTIVE)), metrics);
+    }
+
+    /**
+     * Handles POST requests for streaming chat.
+     *
+     * @param request the chat request containing message and optional LLM provider
+     * @param priority optional priority class (interactive, standard, batch), interactive by default
+     * @param tenant optional tenant the request counts against
+     * @return Flux of response chunks, one SSE event per chunk, and an error event if the stream fails
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> chatStreamPost(
+            @Valid @RequestBody ChatRequest request,
+            @RequestHeader(value = Admission.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        log.info("Incoming streaming chat request");
+        return StreamEvents.of(chatService.streamChat(request, Admission.of(priority, tenant, Priority.INTERACTIVE)),
+                metrics);
+    }
+
+    /**
+     * Handles batch chat requests.
+     * Items run concurrently and each result is written as one NDJSON line as soon as
+     * it completes; a failed item carries an error instead of a response.
+     *
+     * @param requests the chat requests to process
+     * @param tenant optional tenant the items count against
+     * @return Flux of per-item results in completion order
+     */
+    @PostMapping(value = "/chat/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchChatResult> chatBatch(
+            @RequestBody List<ChatRequest> requests,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        log.info("Incoming batch chat request");
+        return batchChatService.processBatch(requests, tenant);
+    }
+
+    /**
+     * Ends a conversation session and discards its history.
+     *
+     * @param sessionId the session to end
+     * @return 204 No Content, whether or not the session existed
+     */
+    @DeleteMapping("/chat/sessions/{sessionId}")
+    public ResponseEntity<Void> endSession(@PathVariable String sessionId) {
 
-        return processChat(request.message(), request.llm());
+        log.info("Ending chat session");
+        chatService.endSession(sessionId);
+        return ResponseEntity.noContent().build();
     }
 
     /**
      * Internal helper method to process chat requests.
+     * The request is handled asynchronously, and the container's async timeout or error
+     * callbacks cancel the upstream call. Nothing is written to the client until the
+     * answer is ready, so a client that silently goes away is usually not noticed; the
+     * request's deadline bounds the call instead. Only streaming requests, whose writes
+     * fail once the client is gone, are reliably cancelled on disconnect.
      *
-     * @param message the chat message
-     * @param llm optional AI provider name
-     * @return ResponseEntity containing ChatResponse
+     * @param request the chat request
+     * @param admission the request's priority and tenant
+     * @return ResponseEntity containing ChatResponse, once the call completes
      */
-    private ResponseEntity<ChatResponse> processChat(String message, String llm) {
+    private DeferredResult<ResponseEntity<ChatResponse>> processChat(ChatRequest request, Admission admission) {
 
         log.info("Incoming chat request");
 
         // Delegate actual chat processing to ChatService
-        ChatResponse response = chatService.processChat(message, llm);
+        DeferredResult<ResponseEntity<ChatResponse>> result = new DeferredResult<>();
+        Disposable call = chatService.processChatAsync(request, admission)
+                .subscribe(response -> result.setResult(ResponseEntity.ok(response)), result::setErrorResult);
+        result.onTimeout(call::dispose);
+        result.onError(ex -> call.dispose());
 
-        return ResponseEntity.ok(response);
+        return result;
     }
 }
\ No newline at end of file
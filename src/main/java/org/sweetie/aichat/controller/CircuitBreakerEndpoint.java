@@ -0,0 +1,53 @@
+package org.sweetie.aichat.controller;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.service.ProviderCircuitBreaker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the state of each provider's circuit breaker.
+ *
+ * <p>Available at {@code /actuator/circuitbreakers} and
+ * {@code /actuator/circuitbreakers/{llm}}.</p>
+ */
+@Component
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakerEndpoint {
+
+    private final ProviderCircuitBreaker circuitBreaker;
+
+    public CircuitBreakerEndpoint(ProviderCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * @return breaker snapshot for every provider, keyed by provider name
+     */
+    @ReadOperation
+    public Map<String, ProviderCircuitBreaker.Snapshot> circuitBreakers() {
+        Map<String, ProviderCircuitBreaker.Snapshot> snapshots = new LinkedHashMap<>();
+        for (LLMType llmType : LLMType.values()) {
+            snapshots.put(llmType.getValue(), circuitBreaker.snapshot(llmType));
+        }
+        return snapshots;
+    }
+
+    /**
+     * @param llm provider name, e.g. "openai"
+     * @return breaker snapshot for that provider
+     */
+    @ReadOperation
+    public ProviderCircuitBreaker.Snapshot circuitBreaker(@Selector String llm) {
+        try {
+            return circuitBreaker.snapshot(LLMType.valueOf(llm.toUpperCase()));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported LLM type: " + llm);
+        }
+    }
+}
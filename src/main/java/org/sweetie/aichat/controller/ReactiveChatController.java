@@ -0,0 +1,183 @@
+package org.sweetie.aichat.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.sweetie.aichat.dto.BatchChatResult;
+import org.sweetie.aichat.dto.ChatRequest;
+import org.sweetie.aichat.dto.ChatResponse;
+import org.sweetie.aichat.model.Priority;
+import org.sweetie.aichat.service.Admission;
+import org.sweetie.aichat.service.BatchChatService;
+import org.sweetie.aichat.service.ChatMetrics;
+import org.sweetie.aichat.service.ChatService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link ChatController}, serving the same API on Reactor Netty
+ * when the application runs as a reactive web application (the {@code reactive} profile).
+ *
+ * <p>No request holds a thread while waiting on a provider. Streamed chunks are written
+ * as the client reads them, and the client's demand is propagated to the provider's
+ * stream, so a slow reader throttles upstream reads.</p>
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Validated
+@RestController
+@RequestMapping("/api")
+public class ReactiveChatController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveChatController.class);
+
+    private final ChatService chatService;
+    private final BatchChatService batchChatService;
+    private final ChatMetrics metrics;
+
+    /**
+     * @param chatService the service handling chat logic
+     * @param batchChatService the service fanning out batch requests
+     * @param metrics receives errors ending a stream
+     */
+    public ReactiveChatController(ChatService chatService, BatchChatService batchChatService, ChatMetrics metrics) {
+        this.chatService = chatService;
+        this.batchChatService = batchChatService;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Handles GET requests for chat.
+     *
+     * @param message the chat message from the user, cannot be blank
+     * @param llm optional AI provider name (e.g., "openai", "ollama")
+     * @param cache set to false to bypass the response cache
+     * @param sessionId optional conversation session the message belongs to
+     * @param timeoutMs optional time budget in milliseconds, capped by configuration
+     * @param priority optional priority class (interactive, standard, batch), interactive by default
+     * @param tenant optional tenant the request counts against
+     * @return Mono of the ChatResponse
+     */
+    @GetMapping("/chat")
+    public Mono<ChatResponse> chatGet(
+            @NotBlank(message = "Message cannot be empty")
+            @RequestParam String message,
+            @RequestParam(required = false) String llm,
+            @RequestParam(required = false) Boolean cache,
+            @Size(max = 128, message = "Session id cannot be longer than 128 characters")
+            @RequestParam(required = false) String sessionId,
+            @Positive(message = "Timeout must be a positive number of milliseconds")
+            @RequestParam(required = false) Long timeoutMs,
+            @RequestHeader(value = Admission.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        log.info("Incoming chat request");
+        return chatService.processChatReactive(new ChatRequest(message, llm, cache, sessionId, timeoutMs),
+                Admission.of(priority, tenant, Priority.INTERACTIVE));
+    }
+
+    /**
+     * Handles POST requests for chat.
+     *
+     * @param request the chat request containing message and optional LLM provider
+     * @param priority optional priority class (interactive, standard, batch), interactive by default
+     * @param tenant optional tenant the request counts against
+     * @return Mono of the ChatResponse
+     */
+    @PostMapping("/chat")
+    public Mono<ChatResponse> chatPost(
+            @Valid @RequestBody ChatRequest request,
+            @RequestHeader(value = Admission.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        log.info("Incoming chat request");
+        return chatService.processChatReactive(request, Admission.of(priority, tenant, Priority.INTERACTIVE));
+    }
+
+    /**
+     * Handles GET requests for streaming chat.
+     *
+     * @param message the chat message from the user, cannot be blank
+     * @param llm optional AI provider name (e.g., "openai", "ollama")
+     * @param sessionId optional conversation session the message belongs to
+     * @param timeoutMs optional time budget in milliseconds, capped by configuration
+     * @param priority optional priority class (interactive, standard, batch), interactive by default
+     * @param tenant optional tenant the request counts against
+     * @return Flux of response chunks, one SSE event per chunk, and an error event if the stream fails
+     */
+    @GetMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> chatStreamGet(
+            @NotBlank(message = "Message cannot be empty")
+            @RequestParam String message,
+            @RequestParam(required = false) String llm,
+            @Size(max = 128, message = "Session id cannot be longer than 128 characters")
+            @RequestParam(required = false) String sessionId,
+            @Positive(message = "Timeout must be a positive number of milliseconds")
+            @RequestParam(required = false) Long timeoutMs,
+            @RequestHeader(value = Admission.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        log.info("Incoming streaming chat request");
+        return StreamEvents.of(chatService.streamChat(new ChatRequest(message, llm, null, sessionId, timeoutMs),
+                Admission.of(priority, tenant, Priority.INTERACTIVE)), metrics);
+    }
+
+    /**
+     * Handles POST requests for streaming chat.
+     *
+     * @param request the chat request containing message and optional LLM provider
+     * @param priority optional priority class (interactive, standard, batch), interactive by default
+     * @param tenant optional tenant the request counts against
+     * @return Flux of response chunks, one SSE event per chunk, and an error event if the stream fails
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> chatStreamPost(
+            @Valid @RequestBody ChatRequest request,
+            @RequestHeader(value = Admission.PRIORITY_HEADER, required = false) String priority,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        log.info("Incoming streaming chat request");
+        return StreamEvents.of(chatService.streamChat(request, Admission.of(priority, tenant, Priority.INTERACTIVE)),
+                metrics);
+    }
+
+    /**
+     * Handles batch chat requests; see {@link ChatController#chatBatch}.
+     *
+     * @param requests the chat requests to process
+     * @param tenant optional tenant the items count against
+     * @return Flux of per-item results in completion order
+     */
+    @PostMapping(value = "/chat/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchChatResult> chatBatch(
+            @RequestBody List<ChatRequest> requests,
+            @RequestHeader(value = Admission.TENANT_HEADER, required = false) String tenant) {
+
+        log.info("Incoming batch chat request");
+        return batchChatService.processBatch(requests, tenant);
+    }
+
+    /**
+     * Ends a conversation session and discards its history.
+     *
+     * @param sessionId the session to end
+     * @return 204 No Content, whether or not the session existed
+     */
+    @DeleteMapping("/chat/sessions/{sessionId}")
+    public ResponseEntity<Void> endSession(@PathVariable String sessionId) {
+
+        log.info("Ending chat session");
+        chatService.endSession(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,39 @@
+package org.sweetie.aichat.controller;
+
+import org.springframework.http.codec.ServerSentEvent;
+import org.sweetie.aichat.dto.ErrorResponse;
+import org.sweetie.aichat.exception.ErrorResponses;
+import org.sweetie.aichat.service.ChatMetrics;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Server-Sent Events framing of a streamed chat, shared by both controllers.
+ */
+final class StreamEvents {
+
+    static final String ERROR_EVENT = "error";
+
+    private StreamEvents() {
+    }
+
+    /**
+     * Sends each chunk as a data event. Once the stream has started the response status is
+     * already sent, so a failure ends the stream with an {@value #ERROR_EVENT} event whose
+     * data is the ErrorResponse instead.
+     *
+     * @param chunks the completion's chunks
+     * @param metrics receives the error count
+     * @return Flux of SSE events
+     */
+    static Flux<ServerSentEvent<Object>> of(Flux<String> chunks, ChatMetrics metrics) {
+
+        return chunks
+                .map(chunk -> ServerSentEvent.<Object>builder(chunk).build())
+                .onErrorResume(ex -> {
+                    ErrorResponse error = ErrorResponses.of(ex);
+                    metrics.recordError(error.errorCode());
+                    return Mono.just(ServerSentEvent.<Object>builder(error).event(ERROR_EVENT).build());
+                });
+    }
+}
@@ -0,0 +1,22 @@
+package org.sweetie.aichat.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one item of a batch chat request; exactly one of response or error is set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchChatResult(
+        int index,                  // Position of the item in the submitted batch
+        ChatResponse response,      // Present when the item succeeded
+        ErrorResponse error         // Present when the item failed
+) {
+
+    public static BatchChatResult success(int index, ChatResponse response) {
+        return new BatchChatResult(index, response, null);
+    }
+
+    public static BatchChatResult failure(int index, ErrorResponse error) {
+        return new BatchChatResult(index, null, error);
+    }
+}
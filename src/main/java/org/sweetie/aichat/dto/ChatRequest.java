@@ -1,8 +1,31 @@
 package org.sweetie.aichat.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 
 public record ChatRequest (
         @NotBlank(message = "Message cannot be empty")
         String message,
-        String llm) { }
+        String llm,
+        Boolean cache,
+        @Size(max = 128, message = "Session id cannot be longer than 128 characters")
+        String sessionId,
+        @Positive(message = "Timeout must be a positive number of milliseconds")
+        Long timeoutMs) {
+
+    public ChatRequest(String message, String llm) {
+        this(message, llm, null, null, null);
+    }
+
+    public ChatRequest(String message, String llm, Boolean cache) {
+        this(message, llm, cache, null, null);
+    }
+
+    /**
+     * @return false only when the client explicitly opted out of the response cache
+     */
+    public boolean cacheEnabled() {
+        return cache == null || cache;
+    }
+}
@@ -14,6 +14,16 @@ public class AIServiceException extends RuntimeException {
         this.errorCode = "AI_SERVICE_UNAVAILABLE";
     }
 
+    public AIServiceException(String errorCode, String message) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    public AIServiceException(String errorCode, String message, Throwable cause) {
+        super(message, cause);
+        this.errorCode = errorCode;
+    }
+
     public String getErrorCode() {
         return errorCode;
     }
@@ -0,0 +1,17 @@
+package org.sweetie.aichat.exception;
+
+import java.time.Duration;
+
+public class DeadlineExceededException extends AIServiceException {
+
+    private final Duration budget;
+
+    public DeadlineExceededException(Duration budget) {
+        super("DEADLINE_EXCEEDED", "Request did not complete within its " + budget.toMillis() + " ms deadline");
+        this.budget = budget;
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,87 @@
+package org.sweetie.aichat.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.sweetie.aichat.dto.ErrorResponse;
+
+import java.time.Instant;
+
+/**
+ * Maps failures to error bodies. This is the one place that decides the status and error
+ * code of a failure: {@link GlobalExceptionHandler} builds its responses here, and so do
+ * failures that cannot go through it, such as a failed batch item or a stream that has
+ * already started.
+ */
+public final class ErrorResponses {
+
+    private ErrorResponses() {
+    }
+
+    /**
+     * Maps a failure to its status and error code.
+     *
+     * @param ex the failure
+     * @return the error body
+     */
+    public static ErrorResponse of(Throwable ex) {
+
+        if (ex instanceof DeadlineExceededException deadlineEx) {
+            return of(HttpStatus.GATEWAY_TIMEOUT, deadlineEx.getErrorCode(), deadlineEx.getMessage());
+        }
+        if (ex instanceof AsyncRequestTimeoutException) {
+            return of(HttpStatus.GATEWAY_TIMEOUT, "DEADLINE_EXCEEDED", "Request did not complete in time");
+        }
+        if (ex instanceof RateLimitExceededException rateEx) {
+            return of(HttpStatus.TOO_MANY_REQUESTS, rateEx.getErrorCode(), rateEx.getMessage());
+        }
+        if (ex instanceof AIServiceException aiEx) {
+            return of(HttpStatus.SERVICE_UNAVAILABLE, aiEx.getErrorCode(), aiEx.getMessage());
+        }
+        if (ex instanceof IllegalArgumentException) {
+            return of(HttpStatus.BAD_REQUEST, "BAD_REQUEST", ex.getMessage());
+        }
+        return of(HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_SERVER_ERROR", ex.getMessage());
+    }
+
+    /**
+     * @param status HTTP status code
+     * @param code application-specific error code
+     * @param message human-readable error message
+     * @return the error body
+     */
+    public static ErrorResponse of(HttpStatus status, String code, String message) {
+        return new ErrorResponse(status.value(), code, message, Instant.now());
+    }
+
+    /**
+     * Maps a failure to a complete JSON response, with Retry-After set to the time until
+     * the quota refills when a rate limit was hit.
+     *
+     * @param ex the failure
+     * @return the response
+     */
+    public static ResponseEntity<ErrorResponse> toResponseEntity(Throwable ex) {
+
+        ResponseEntity<ErrorResponse> response = toResponseEntity(of(ex));
+        if (ex instanceof RateLimitExceededException rateEx) {
+            long retryAfterSeconds = Math.max(1, (rateEx.getRetryAfter().toMillis() + 999) / 1000);
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(response.getBody());
+        }
+        return response;
+    }
+
+    /**
+     * @param error the error body
+     * @return a JSON response with the body's status
+     */
+    public static ResponseEntity<ErrorResponse> toResponseEntity(ErrorResponse error) {
+        // A preset content type skips negotiation against the handler's produces, e.g. text/event-stream
+        return ResponseEntity.status(error.status()).contentType(MediaType.APPLICATION_JSON).body(error);
+    }
+}
@@ -5,28 +5,46 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 import org.sweetie.aichat.dto.ErrorResponse;
-
-import java.time.Instant;
+import org.sweetie.aichat.service.ChatMetrics;
 
 /**
  * Global exception handler for all REST controllers.
  *
- * <p>Maps exceptions to structured JSON responses with appropriate HTTP status codes.</p>
+ * <p>Maps exceptions to structured JSON responses with appropriate HTTP status codes. The
+ * status and error code of a failure come from {@link ErrorResponses}, so a request failing
+ * here gets the same error as a batch item or stream failing the same way.</p>
  *
  * <p>Exception Mapping:</p>
  * <table>
  *     <tr><th>Exception</th><th>HTTP Status</th><th>Error Code</th><th>Message</th></tr>
  *     <tr><td>AIServiceException</td><td>503</td><td>AI_SERVICE_UNAVAILABLE</td><td>AI service is unavailable</td></tr>
+ *     <tr><td>AIServiceException</td><td>503</td><td>PROVIDER_BUSY</td><td>Provider bulkhead is full</td></tr>
+ *     <tr><td>AIServiceException</td><td>503</td><td>OVERLOADED</td><td>Request shed by the provider's adaptive concurrency limit</td></tr>
+ *     <tr><td>AIServiceException</td><td>503</td><td>CIRCUIT_OPEN</td><td>Provider circuit breaker is open</td></tr>
+ *     <tr><td>AIServiceException</td><td>503</td><td>REQUEST_CANCELLED</td><td>Call abandoned, usually because the client went away</td></tr>
+ *     <tr><td>DeadlineExceededException</td><td>504</td><td>DEADLINE_EXCEEDED</td><td>Request's time budget ran out</td></tr>
+ *     <tr><td>AsyncRequestTimeoutException</td><td>504</td><td>DEADLINE_EXCEEDED</td><td>Async request timeout of servlet mode ran out</td></tr>
+ *     <tr><td>RateLimitExceededException</td><td>429</td><td>RATE_LIMITED</td><td>Provider quota exhausted</td></tr>
  *     <tr><td>MethodArgumentNotValidException</td><td>400</td><td>VALIDATION_FAILED</td><td>Field validation errors</td></tr>
+ *     <tr><td>WebExchangeBindException</td><td>400</td><td>VALIDATION_FAILED</td><td>Field validation errors (reactive mode)</td></tr>
  *     <tr><td>ConstraintViolationException</td><td>400</td><td>CONSTRAINT_VIOLATION</td><td>Request parameter validation errors</td></tr>
  *     <tr><td>IllegalArgumentException</td><td>400</td><td>BAD_REQUEST</td><td>Invalid arguments provided</td></tr>
  *     <tr><td>Other Exceptions</td><td>500</td><td>INTERNAL_SERVER_ERROR</td><td>An unexpected error occurred</td></tr>
  * </table>
  *
+ * <p>Every response built here is counted in the {@code chat.errors} metric by error code.
+ * Responses are always JSON, including for requests that asked for
+ * {@code text/event-stream}: a streaming request failing before its stream starts gets a
+ * JSON error rather than a 406. Failures once a stream is under way end it with an
+ * {@code error} event instead.</p>
+ *
  * @see ErrorResponse
  * @see AIServiceException
  */
@@ -35,6 +53,12 @@ public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    private final ChatMetrics metrics;
+
+    public GlobalExceptionHandler(ChatMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     // ----------------------------------------
     // Exception Handlers
     // ----------------------------------------
@@ -48,7 +72,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleBadRequest(IllegalArgumentException ex) {
         log.error("IllegalArgumentException caught: {}", ex.getMessage(), ex);
-        return buildErrorResponse(HttpStatus.BAD_REQUEST, "BAD_REQUEST", ex.getMessage());
+        return buildErrorResponse(ex);
     }
 
     /**
@@ -60,11 +84,46 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(AIServiceException.class)
     public ResponseEntity<ErrorResponse> handleAIServiceException(AIServiceException ex) {
         log.error("AIServiceException caught: {}", ex.getMessage(), ex);
-        return buildErrorResponse(
-                HttpStatus.SERVICE_UNAVAILABLE,
-                ex.getErrorCode(),
-                ex.getMessage()
-        );
+        return buildErrorResponse(ex);
+    }
+
+    /**
+     * Handles DeadlineExceededException when a request's time budget runs out.
+     *
+     * @param ex the DeadlineExceededException
+     * @return structured ErrorResponse with HTTP 504 status
+     */
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<ErrorResponse> handleDeadlineExceeded(DeadlineExceededException ex) {
+        log.warn("DeadlineExceededException caught: {}", ex.getMessage());
+        return buildErrorResponse(ex);
+    }
+
+    /**
+     * Handles AsyncRequestTimeoutException when {@code spring.mvc.async.request-timeout}
+     * runs out before an asynchronous servlet request completes. The upstream call has
+     * been cancelled by then, so this reads as a missed deadline, not as an unavailable service.
+     *
+     * @param ex the AsyncRequestTimeoutException
+     * @return structured ErrorResponse with HTTP 504 status
+     */
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleAsyncRequestTimeout(AsyncRequestTimeoutException ex) {
+        log.warn("Async request timed out");
+        return buildErrorResponse(ex);
+    }
+
+    /**
+     * Handles RateLimitExceededException when a provider's local quota is exhausted.
+     * Sets Retry-After to the time until the quota refills.
+     *
+     * @param ex the RateLimitExceededException
+     * @return structured ErrorResponse with HTTP 429 status
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimitExceeded(RateLimitExceededException ex) {
+        log.warn("RateLimitExceededException caught: {}", ex.getMessage());
+        return buildErrorResponse(ex);
     }
 
     /**
@@ -76,16 +135,19 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
         log.error("Method argument validation failed: {}", ex.getMessage(), ex);
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, "VALIDATION_FAILED", firstFieldError(ex.getBindingResult()));
+    }
 
-        // Aggregate field errors into a single message (taking first error for simplicity)
-        String errorMessage = ex.getBindingResult()
-                .getFieldErrors()
-                .stream()
-                .map(fe -> fe.getField() + ": " + fe.getDefaultMessage())
-                .findFirst()
-                .orElse("Invalid input");
-
-        return buildErrorResponse(HttpStatus.BAD_REQUEST, "VALIDATION_FAILED", errorMessage);
+    /**
+     * Handles validation errors for @Valid annotated request bodies in reactive mode.
+     *
+     * @param ex the exception containing field errors
+     * @return structured ErrorResponse with HTTP 400 status
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleReactiveValidationExceptions(WebExchangeBindException ex) {
+        log.error("Request body validation failed: {}", ex.getMessage(), ex);
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, "VALIDATION_FAILED", firstFieldError(ex.getBindingResult()));
     }
 
     /**
@@ -119,7 +181,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unhandled exception caught: {}", ex.getMessage(), ex);
-        return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_SERVER_ERROR", ex.getMessage());
+        return buildErrorResponse(ex);
     }
 
     // ----------------------------------------
@@ -127,7 +189,29 @@ public class GlobalExceptionHandler {
     // ----------------------------------------
 
     /**
-     * Helper method to build ErrorResponse and ResponseEntity.
+     * Aggregates field errors into a single message (taking first error for simplicity).
+     */
+    private static String firstFieldError(BindingResult bindingResult) {
+        return bindingResult
+                .getFieldErrors()
+                .stream()
+                .map(fe -> fe.getField() + ": " + fe.getDefaultMessage())
+                .findFirst()
+                .orElse("Invalid input");
+    }
+
+    /**
+     * Helper method to build the ResponseEntity for an exception mapped by {@link ErrorResponses}.
+     *
+     * @param ex the exception
+     * @return ResponseEntity containing structured ErrorResponse
+     */
+    private ResponseEntity<ErrorResponse> buildErrorResponse(Throwable ex) {
+        return count(ErrorResponses.toResponseEntity(ex));
+    }
+
+    /**
+     * Helper method to build ErrorResponse and ResponseEntity for request validation failures.
      *
      * @param status HTTP status code
      * @param code application-specific error code
@@ -135,12 +219,14 @@ public class GlobalExceptionHandler {
      * @return ResponseEntity containing structured ErrorResponse
      */
     private ResponseEntity<ErrorResponse> buildErrorResponse(HttpStatus status, String code, String message) {
-        ErrorResponse error = new ErrorResponse(
-                status.value(),
-                code,
-                message,
-                Instant.now()
-        );
-        return ResponseEntity.status(status).body(error);
+        return count(ErrorResponses.toResponseEntity(ErrorResponses.of(status, code, message)));
+    }
+
+    /**
+     * Counts the response in the {@code chat.errors} metric by its error code.
+     */
+    private ResponseEntity<ErrorResponse> count(ResponseEntity<ErrorResponse> response) {
+        metrics.recordError(response.getBody().errorCode());
+        return response;
     }
 }
\ No newline at end of file
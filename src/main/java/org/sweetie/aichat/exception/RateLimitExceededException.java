@@ -0,0 +1,17 @@
+package org.sweetie.aichat.exception;
+
+import java.time.Duration;
+
+public class RateLimitExceededException extends AIServiceException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super("RATE_LIMITED", message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
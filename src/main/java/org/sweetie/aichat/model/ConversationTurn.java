@@ -0,0 +1,11 @@
+package org.sweetie.aichat.model;
+
+/**
+ * One exchange of a conversation session: the user's message and the assistant's reply.
+ * History is kept and trimmed in whole turns, so a prompt never starts with a dangling reply.
+ *
+ * @param userMessage the user's message
+ * @param assistantMessage the reply that was returned
+ * @param tokens approximate prompt tokens the turn costs when replayed as history
+ */
+public record ConversationTurn(String userMessage, String assistantMessage, int tokens) { }
@@ -0,0 +1,21 @@
+package org.sweetie.aichat.model;
+
+/**
+ * Admission priority of a chat request. When a provider's slots are all taken, a free
+ * slot always goes to the highest class with a request waiting.
+ */
+public enum Priority {
+    INTERACTIVE("interactive"),
+    STANDARD("standard"),
+    BATCH("batch");
+
+    private final String value;
+
+    Priority(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,127 @@
+package org.sweetie.aichat.service;
+
+import org.sweetie.aichat.webconfig.ConcurrencyLimitProperties;
+
+/**
+ * In-flight limit of one provider, adjusted after every completed call.
+ *
+ * <p>Both algorithms multiply the limit by the backoff ratio when a call signals overload:
+ * an upstream 429 or 5xx, or a timeout. On success, AIMD adds one while the limit is
+ * actually being used. Vegas instead estimates how many requests are queued at the
+ * provider from the latency sample and its no-load baseline,
+ * {@code limit * (1 - baseline / latency)}, growing while that queue is short and
+ * shrinking once it is long. The baseline is the lowest latency seen and is reset
+ * now and then, so it follows a provider whose unloaded speed changes.</p>
+ *
+ * <p>Raw call latency mostly measures how long the answer was, so Vegas is fed
+ * load-sensitive samples instead: time to first token for streams, and latency per
+ * completion token for blocking calls. The two are in different units, so each
+ * {@link Signal} keeps its own baseline.</p>
+ *
+ * <p>Not thread-safe; callers serialize updates.</p>
+ */
+final class AdaptiveConcurrencyLimit {
+
+    /**
+     * Kind of latency sample; samples are only compared with a baseline of the same kind.
+     */
+    enum Signal {
+        /** Time to the first chunk of a streamed call */
+        TIME_TO_FIRST_TOKEN,
+        /** Latency of a blocking call divided by its completion tokens */
+        LATENCY_PER_TOKEN
+    }
+
+    // Samples between baseline resets, per unit of limit
+    private static final int PROBE_SAMPLES_PER_SLOT = 30;
+
+    private final ConcurrencyLimitProperties.Algorithm algorithm;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long[] baselineNanos = new long[Signal.values().length];
+    private final long[] samplesSinceProbe = new long[Signal.values().length];
+
+    private volatile double limit;
+
+    /**
+     * @param properties algorithm and bounds
+     * @param maxLimit highest the limit may rise to
+     */
+    AdaptiveConcurrencyLimit(ConcurrencyLimitProperties properties, int maxLimit) {
+        this.algorithm = properties.algorithm();
+        this.maxLimit = maxLimit;
+        this.minLimit = Math.min(Math.max(1, properties.minLimit()), maxLimit);
+        this.backoffRatio = properties.backoffRatio();
+        this.limit = Math.clamp(properties.initialLimit(), minLimit, maxLimit);
+    }
+
+    /**
+     * @return the current limit
+     */
+    int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * Updates the limit with a successful call.
+     *
+     * @param signal what the sample measures
+     * @param sampleNanos the sample, in nanoseconds
+     * @param inFlight calls in flight when this one completed, itself included
+     * @return the new limit
+     */
+    int onSuccess(Signal signal, long sampleNanos, int inFlight) {
+
+        // Latency measured with most slots idle says nothing about the limit
+        if (inFlight * 2 < limit()) {
+            return limit();
+        }
+
+        double next = switch (algorithm) {
+            case AIMD -> limit + 1;
+            case VEGAS -> vegas(signal.ordinal(), sampleNanos);
+        };
+        limit = Math.clamp(next, minLimit, maxLimit);
+        return limit();
+    }
+
+    /**
+     * Backs off after a call that signalled overload.
+     *
+     * @return the new limit
+     */
+    int onOverload() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+        return limit();
+    }
+
+    private double vegas(int signal, long sampleNanos) {
+
+        if (sampleNanos <= 0) {
+            return limit;
+        }
+        if (++samplesSinceProbe[signal] >= (long) PROBE_SAMPLES_PER_SLOT * limit()) {
+            samplesSinceProbe[signal] = 0;
+            baselineNanos[signal] = 0;
+        }
+        long baseline = baselineNanos[signal];
+        if (baseline == 0 || sampleNanos < baseline) {
+            baselineNanos[signal] = sampleNanos;
+            return limit;
+        }
+
+        double queued = Math.ceil(limit * (1 - (double) baseline / sampleNanos));
+        double step = Math.max(1, Math.log10(limit));
+        if (queued <= step) {
+            return limit + 3 * step;
+        }
+        if (queued < 3 * step) {
+            return limit + step;
+        }
+        if (queued > 6 * step) {
+            return limit - step;
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,108 @@
+package org.sweetie.aichat.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.RoutingProperties;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks the fastest healthy provider for requests that do not name one.
+ *
+ * <p>Until any candidate has samples, requests are spread round-robin across them. After
+ * that a candidate still without samples is probed with one request per probe interval,
+ * so a provider whose calls never complete cannot draw all the traffic. A small share of
+ * traffic is sent to a random candidate so that unhealthy providers can prove they
+ * recovered.</p>
+ */
+@Component
+public class AdaptiveRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveRouter.class);
+
+    private final ProviderLatencyTracker latencyTracker;
+    private final List<LLMType> candidates;
+    private final double maxErrorRate;
+    private final double explorationRatio;
+    private final long probeIntervalNanos;
+    private final Map<LLMType, AtomicLong> nextProbeNanos = new EnumMap<>(LLMType.class);
+    private final AtomicInteger coldStartCursor = new AtomicInteger();
+
+    /**
+     * @param latencyTracker live provider statistics
+     * @param properties candidate list and health thresholds
+     * @param chatClients registry; candidates that are not enabled are ignored
+     */
+    public AdaptiveRouter(
+            ProviderLatencyTracker latencyTracker,
+            RoutingProperties properties,
+            ChatClientRegistry chatClients) {
+
+        this.latencyTracker = latencyTracker;
+        this.candidates = properties.candidates().stream()
+                .filter(chatClients::isEnabled)
+                .toList();
+        this.maxErrorRate = properties.maxErrorRate();
+        this.explorationRatio = properties.explorationRatio();
+        this.probeIntervalNanos = properties.probeInterval().toNanos();
+        long now = System.nanoTime();
+        for (LLMType candidate : candidates) {
+            nextProbeNanos.put(candidate, new AtomicLong(now));
+        }
+    }
+
+    /**
+     * @return the provider with the lowest smoothed latency among healthy candidates,
+     *         or empty if every candidate is unhealthy
+     */
+    public Optional<LLMType> selectFastest() {
+
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < explorationRatio) {
+            LLMType explored = candidates.get(random.nextInt(candidates.size()));
+            log.debug("Exploring provider {}", explored);
+            return Optional.of(explored);
+        }
+
+        List<LLMType> sampled = candidates.stream()
+                .filter(candidate -> latencyTracker.snapshot(candidate).samples() > 0)
+                .toList();
+        if (sampled.isEmpty()) {
+            return Optional.of(candidates.get(Math.floorMod(coldStartCursor.getAndIncrement(), candidates.size())));
+        }
+
+        for (LLMType candidate : candidates) {
+            if (!sampled.contains(candidate) && tryProbe(candidate)) {
+                log.debug("Probing provider {} without samples", candidate);
+                return Optional.of(candidate);
+            }
+        }
+
+        return sampled.stream()
+                .filter(candidate -> latencyTracker.snapshot(candidate).errorRate() <= maxErrorRate)
+                .min(Comparator.comparingDouble(candidate -> latencyTracker.snapshot(candidate).ewmaLatencyMillis()));
+    }
+
+    /**
+     * @return true, at most once per probe interval, if the candidate is due a probe
+     */
+    private boolean tryProbe(LLMType candidate) {
+        AtomicLong next = nextProbeNanos.get(candidate);
+        long due = next.get();
+        long now = System.nanoTime();
+        return now - due >= 0 && next.compareAndSet(due, now + probeIntervalNanos);
+    }
+}
@@ -0,0 +1,42 @@
+package org.sweetie.aichat.service;
+
+import org.sweetie.aichat.model.Priority;
+
+/**
+ * Who is asking for a provider slot: the request's priority class and the tenant whose
+ * fair share it counts against.
+ *
+ * @param priority admission priority class
+ * @param tenant tenant id, {@value #DEFAULT_TENANT} when the client sent none
+ */
+public record Admission(Priority priority, String tenant) {
+
+    public static final String PRIORITY_HEADER = "X-Priority";
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    public static final String DEFAULT_TENANT = "default";
+
+    public Admission {
+        tenant = tenant == null || tenant.isBlank() ? DEFAULT_TENANT : tenant;
+    }
+
+    /**
+     * Builds the admission of a request from its headers.
+     *
+     * @param priority value of the priority header, or null for the endpoint's default
+     * @param tenant value of the tenant header, or null
+     * @param defaultPriority priority of requests that do not ask for one
+     * @return the request's admission
+     * @throws IllegalArgumentException if the priority is not a known class
+     */
+    public static Admission of(String priority, String tenant, Priority defaultPriority) {
+
+        if (priority == null || priority.isBlank()) {
+            return new Admission(defaultPriority, tenant);
+        }
+        try {
+            return new Admission(Priority.valueOf(priority.toUpperCase()), tenant);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported priority: " + priority);
+        }
+    }
+}
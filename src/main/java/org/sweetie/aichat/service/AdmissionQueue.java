@@ -0,0 +1,290 @@
+package org.sweetie.aichat.service;
+
+import org.sweetie.aichat.model.Priority;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Slots of one provider, handed to waiting requests by priority class and, within a
+ * class, by weighted fair queuing across tenants.
+ *
+ * <p>A released slot goes to the highest class with anyone waiting. Inside a class each
+ * waiter is tagged with a virtual finish time, {@code max(virtualTime, tenant's last
+ * finish) + 1 / weight}, and the smallest tag is served first (self-clocked fair
+ * queuing), so a tenant flooding the queue only delays its own requests.</p>
+ *
+ * <p>The queue bound is shared by all classes, but a full queue never turns away a
+ * request while a lower class is waiting: the newest waiter of the lowest waiting class
+ * is shed instead and gets {@link Outcome#QUEUE_FULL}. Likewise, lowering the bound sheds
+ * waiters from the lowest classes first.</p>
+ *
+ * <p>The number of slots and the queue bound can be changed at any time. Lowering them
+ * never revokes a slot already held; it only holds back the next grants.</p>
+ */
+final class AdmissionQueue {
+
+    enum Outcome { GRANTED, TIMED_OUT, QUEUE_FULL }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, ClassQueue> classes = new EnumMap<>(Priority.class);
+    private int limit;
+    private int maxQueued;
+    private int inFlight;
+    private int queued;
+    private long sequence;
+
+    /**
+     * @param slots concurrent calls allowed
+     * @param maxQueued max requests waiting at once
+     */
+    AdmissionQueue(int slots, int maxQueued) {
+        this.limit = slots;
+        this.maxQueued = maxQueued;
+        for (Priority priority : Priority.values()) {
+            classes.put(priority, new ClassQueue());
+        }
+    }
+
+    /**
+     * Takes a free slot, or waits in line for one.
+     *
+     * @param priority the request's class
+     * @param tenant the tenant the request counts against
+     * @param weight the tenant's fair-share weight
+     * @param timeoutNanos longest time to wait
+     * @return whether a slot is now held, or why not
+     * @throws InterruptedException if interrupted while waiting; no slot is held then
+     */
+    Outcome acquire(Priority priority, String tenant, int weight, long timeoutNanos) throws InterruptedException {
+
+        lock.lock();
+        try {
+            // Slots are only ever free while nobody is waiting
+            if (inFlight < limit) {
+                inFlight++;
+                return Outcome.GRANTED;
+            }
+            if (timeoutNanos <= 0) {
+                return Outcome.TIMED_OUT;
+            }
+            if (queued >= maxQueued && !shedBelow(priority)) {
+                return Outcome.QUEUE_FULL;
+            }
+
+            ClassQueue queue = classes.get(priority);
+            Waiter waiter = queue.enqueue(tenant, weight, sequence++, lock.newCondition());
+            queued++;
+
+            long remaining = timeoutNanos;
+            while (!waiter.granted) {
+                if (waiter.shed) {
+                    return Outcome.QUEUE_FULL;
+                }
+                if (remaining <= 0) {
+                    queue.remove(waiter);
+                    queued--;
+                    return Outcome.TIMED_OUT;
+                }
+                try {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                } catch (InterruptedException ex) {
+                    if (waiter.granted) {
+                        // Handed a slot while being interrupted: pass it on
+                        releaseLocked();
+                    } else if (!waiter.shed) {
+                        queue.remove(waiter);
+                        queued--;
+                    }
+                    throw ex;
+                }
+            }
+            return Outcome.GRANTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a slot, handing it straight to the next waiter if there is one.
+     */
+    void release() {
+        lock.lock();
+        try {
+            releaseLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the number of slots and the queue bound, granting slots to waiters if
+     * the limit went up and shedding waiters, lowest class first, beyond a lowered bound.
+     *
+     * @param slots concurrent calls allowed
+     * @param maxQueued max requests waiting at once
+     */
+    void resize(int slots, int maxQueued) {
+        lock.lock();
+        try {
+            this.limit = slots;
+            this.maxQueued = maxQueued;
+            grantWaiting();
+            boolean shed = true;
+            while (queued > maxQueued && shed) {
+                shed = shedBelow(null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of slots held
+     */
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param priority the class
+     * @return number of requests of the class waiting
+     */
+    int queued(Priority priority) {
+        lock.lock();
+        try {
+            return classes.get(priority).waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseLocked() {
+        inFlight--;
+        grantWaiting();
+    }
+
+    /**
+     * Sheds the newest waiter of the lowest class waiting below the given one.
+     *
+     * @param priority class the room is made for, or null to shed from any class
+     * @return false if no lower class has anyone waiting
+     */
+    private boolean shedBelow(Priority priority) {
+
+        Priority[] priorities = Priority.values();
+        for (int i = priorities.length - 1; i >= 0 && priorities[i] != priority; i--) {
+            ClassQueue queue = classes.get(priorities[i]);
+            Waiter victim = queue.newest();
+            if (victim != null) {
+                queue.remove(victim);
+                queued--;
+                victim.shed = true;
+                victim.condition.signal();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void grantWaiting() {
+        while (inFlight < limit && queued > 0) {
+            // EnumMap iterates in declaration order, highest priority first
+            for (ClassQueue queue : classes.values()) {
+                Waiter next = queue.poll();
+                if (next != null) {
+                    queued--;
+                    inFlight++;
+                    next.granted = true;
+                    next.condition.signal();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waiters of one priority class, ordered by virtual finish time.
+     */
+    private static final class ClassQueue {
+
+        private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+                Comparator.comparingDouble((Waiter waiter) -> waiter.finish).thenComparingLong(waiter -> waiter.sequence));
+        private final Map<String, Double> lastFinish = new HashMap<>();
+        private double virtualTime;
+
+        Waiter enqueue(String tenant, int weight, long sequence, Condition condition) {
+            double finish = Math.max(virtualTime, lastFinish.getOrDefault(tenant, 0.0)) + 1.0 / weight;
+            lastFinish.put(tenant, finish);
+            Waiter waiter = new Waiter(tenant, finish, sequence, condition);
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        Waiter poll() {
+            Waiter waiter = waiters.poll();
+            if (waiter != null) {
+                virtualTime = waiter.finish;
+                // A tenant with nothing left in line needs no history: max(virtualTime, ...) covers it
+                lastFinish.remove(waiter.tenant, waiter.finish);
+                if (waiters.isEmpty()) {
+                    reset();
+                }
+            }
+            return waiter;
+        }
+
+        Waiter newest() {
+            return waiters.stream().max(Comparator.comparingLong(waiter -> waiter.sequence)).orElse(null);
+        }
+
+        void remove(Waiter waiter) {
+            waiters.remove(waiter);
+            if (waiters.isEmpty()) {
+                reset();
+                return;
+            }
+            // A waiter that gave up was never served: roll the tenant's tag back to its
+            // last remaining waiter so its next request is not charged for this one
+            if (lastFinish.remove(waiter.tenant, waiter.finish)) {
+                waiters.stream()
+                        .filter(other -> other.tenant.equals(waiter.tenant))
+                        .mapToDouble(other -> other.finish)
+                        .max()
+                        .ifPresent(finish -> lastFinish.put(waiter.tenant, finish));
+            }
+        }
+
+        private void reset() {
+            lastFinish.clear();
+            virtualTime = 0;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final String tenant;
+        private final double finish;
+        private final long sequence;
+        private final Condition condition;
+        private boolean granted;
+        private boolean shed;
+
+        Waiter(String tenant, double finish, long sequence, Condition condition) {
+            this.tenant = tenant;
+            this.finish = finish;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+    }
+}
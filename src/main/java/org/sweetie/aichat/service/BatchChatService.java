@@ -0,0 +1,136 @@
+package org.sweetie.aichat.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.sweetie.aichat.dto.BatchChatResult;
+import org.sweetie.aichat.dto.ChatRequest;
+import org.sweetie.aichat.dto.ErrorResponse;
+import org.sweetie.aichat.exception.ErrorResponses;
+import org.sweetie.aichat.model.Priority;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Service class responsible for running a batch of chat requests concurrently.
+ *
+ * <p>Each item goes through {@link ChatService} routing, caching and resilience as a
+ * normal request would, at batch priority so that interactive traffic is admitted to a
+ * busy provider first. Items are validated against the {@link ChatRequest} constraints
+ * one by one, so an invalid item fails on its own instead of rejecting the batch. At most {@code chat.batch.max-parallelism} items are in
+ * flight at once, and results are emitted in completion order.</p>
+ */
+@Service
+public class BatchChatService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchChatService.class);
+
+    private final ChatService chatService;
+    private final ChatMetrics metrics;
+    private final Validator validator;
+    private final Scheduler scheduler;
+    private final int maxParallelism;
+    private final int maxItems;
+
+    /**
+     * @param chatService service handling each individual chat
+     * @param metrics receives per-item error counts
+     * @param validator checks each item against the request constraints
+     * @param executor executor the items run on
+     * @param maxParallelism maximum items in flight per batch
+     * @param maxItems maximum items accepted per batch
+     */
+    public BatchChatService(
+            ChatService chatService,
+            ChatMetrics metrics,
+            Validator validator,
+            @Qualifier("chatExecutor") ExecutorService executor,
+            @Value("${chat.batch.max-parallelism:16}") int maxParallelism,
+            @Value("${chat.batch.max-items:500}") int maxItems) {
+
+        this.chatService = chatService;
+        this.metrics = metrics;
+        this.validator = validator;
+        this.scheduler = Schedulers.fromExecutorService(executor, "chat-batch");
+        this.maxParallelism = maxParallelism;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Processes every request in the batch, emitting one result per item as it completes.
+     * A failing item yields an error result and does not affect the others.
+     *
+     * @param requests the batch items
+     * @param tenant tenant the items count against, or null for the default tenant
+     * @return Flux of per-item results in completion order
+     */
+    public Flux<BatchChatResult> processBatch(List<ChatRequest> requests, String tenant) {
+
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one request");
+        }
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException("Batch cannot contain more than " + maxItems + " requests");
+        }
+
+        log.info("Processing batch of {} requests", requests.size());
+
+        Admission admission = new Admission(Priority.BATCH, tenant);
+        return Flux.range(0, requests.size())
+                .flatMap(index -> processItem(index, requests.get(index), admission), maxParallelism);
+    }
+
+    /**
+     * Runs one batch item on the executor, turning failures into an error result.
+     */
+    private Mono<BatchChatResult> processItem(int index, ChatRequest request, Admission admission) {
+
+        String violations = violations(request);
+        if (violations != null) {
+            metrics.recordError("VALIDATION_FAILED");
+            return Mono.just(BatchChatResult.failure(index, ErrorResponses.of(HttpStatus.BAD_REQUEST,
+                    "VALIDATION_FAILED", violations)));
+        }
+
+        return Mono.fromCallable(() -> BatchChatResult.success(index, chatService.processChat(request, admission)))
+                .subscribeOn(scheduler)
+                .onErrorResume(ex -> {
+                    log.warn("Batch item {} failed: {}", index, ex.getMessage());
+                    ErrorResponse error = ErrorResponses.of(ex);
+                    metrics.recordError(error.errorCode());
+                    return Mono.just(BatchChatResult.failure(index, error));
+                });
+    }
+
+    /**
+     * Combines the item's constraint violations into one message, in field order.
+     *
+     * @return the message, or null if the item is valid
+     */
+    private String violations(ChatRequest request) {
+
+        if (request == null) {
+            return "Request cannot be null";
+        }
+        Set<ConstraintViolation<ChatRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(cv -> cv.getPropertyPath() + ": " + cv.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
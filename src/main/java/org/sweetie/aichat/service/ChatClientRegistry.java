@@ -0,0 +1,179 @@
+package org.sweetie.aichat.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.anthropic.AnthropicChatModel;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.ProvidersProperties;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Holds the ChatClient and configured model name of every enabled AI provider.
+ *
+ * <p>Provider chat models are lazy beans (see {@code LLMConfig}): each is built on first use,
+ * so a deployment only pays startup time and heap for the providers it actually calls, and
+ * disabled providers are never built at all.</p>
+ */
+@Component
+public class ChatClientRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatClientRegistry.class);
+
+    private final Map<LLMType, LazyProvider> providers = new EnumMap<>(LLMType.class);
+
+    /**
+     * Registers a lazily built client for each enabled provider.
+     *
+     * @param properties enabled providers
+     * @param openAiChatModel OpenAI model
+     * @param ollamaChatModel Ollama model
+     * @param geminiChatClient Gemini model
+     * @param anthropicChatModel Anthropic model
+     * @param geminiModelName model name the Gemini client is configured with
+     */
+    @Autowired
+    public ChatClientRegistry(
+            ProvidersProperties properties,
+            ObjectProvider<OpenAiChatModel> openAiChatModel,
+            ObjectProvider<OllamaChatModel> ollamaChatModel,
+            @Qualifier("geminiChatClient") ObjectProvider<ChatClient> geminiChatClient,
+            ObjectProvider<AnthropicChatModel> anthropicChatModel,
+            @Value("${gemini.model.name}") String geminiModelName) {
+
+        Map<LLMType, Supplier<Provider>> factories = Map.of(
+                LLMType.OPENAI, () -> provider(openAiChatModel.getObject()),
+                LLMType.OLLAMA, () -> provider(ollamaChatModel.getObject()),
+                LLMType.GEMINI, () -> new Provider(geminiChatClient.getObject(), geminiModelName),
+                LLMType.ANTHROPIC, () -> provider(anthropicChatModel.getObject())
+        );
+        properties.enabled().forEach(llmType -> providers.put(llmType, new LazyProvider(llmType, factories.get(llmType))));
+        log.info("Enabled LLM providers: {}", providers.keySet());
+    }
+
+    /**
+     * Creates a registry from ready-made clients, e.g. stubs for offline benchmarks.
+     *
+     * @param chatClients client per provider
+     * @param modelNames model name per provider
+     */
+    public ChatClientRegistry(Map<LLMType, ChatClient> chatClients, Map<LLMType, String> modelNames) {
+        chatClients.forEach((llmType, chatClient) -> providers.put(llmType,
+                new LazyProvider(llmType, () -> new Provider(chatClient, modelNames.getOrDefault(llmType, "")))));
+    }
+
+    /**
+     * Retrieves the ChatClient for a given LLM type, building it on first use.
+     *
+     * @param llmType the AI provider type
+     * @return ChatClient associated with the provider
+     * @throws IllegalArgumentException if the provider is not enabled
+     */
+    public ChatClient chatClient(LLMType llmType) {
+        return provider(llmType).chatClient();
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @return model name the provider is configured with, or an empty string if unknown
+     * @throws IllegalArgumentException if the provider is not enabled
+     */
+    public String modelName(LLMType llmType) {
+        return provider(llmType).modelName();
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @return whether the provider is enabled on this instance
+     */
+    public boolean isEnabled(LLMType llmType) {
+        return providers.containsKey(llmType);
+    }
+
+    /**
+     * @return providers enabled on this instance
+     */
+    public Set<LLMType> enabledProviders() {
+        return Collections.unmodifiableSet(providers.keySet());
+    }
+
+    /**
+     * Builds the provider's client now if it has not been built yet.
+     *
+     * @param llmType the AI provider type
+     * @throws IllegalArgumentException if the provider is not enabled
+     */
+    public void initialize(LLMType llmType) {
+        provider(llmType);
+    }
+
+    private Provider provider(LLMType llmType) {
+
+        LazyProvider provider = providers.get(llmType);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unsupported LLM type: " + llmType);
+        }
+        return provider.get();
+    }
+
+    /**
+     * Reads the model name from a chat model's default options; model names are part of
+     * the cache key, so switching models never serves stale answers.
+     */
+    private static Provider provider(ChatModel chatModel) {
+
+        ChatOptions options = chatModel.getDefaultOptions();
+        String modelName = options == null || options.getModel() == null ? "" : options.getModel();
+        return new Provider(ChatClient.create(chatModel), modelName);
+    }
+
+    private record Provider(ChatClient chatClient, String modelName) {
+    }
+
+    /**
+     * Builds a provider at most once, on the first thread that needs it.
+     */
+    private static final class LazyProvider {
+
+        private final LLMType llmType;
+        private final Supplier<Provider> factory;
+        private volatile Provider provider;
+
+        LazyProvider(LLMType llmType, Supplier<Provider> factory) {
+            this.llmType = llmType;
+            this.factory = factory;
+        }
+
+        Provider get() {
+
+            Provider current = provider;
+            if (current == null) {
+                synchronized (this) {
+                    current = provider;
+                    if (current == null) {
+                        long start = System.nanoTime();
+                        current = factory.get();
+                        provider = current;
+                        log.info("Initialized LLM provider {} in {} ms",
+                                llmType, (System.nanoTime() - start) / 1_000_000);
+                    }
+                }
+            }
+            return current;
+        }
+    }
+}
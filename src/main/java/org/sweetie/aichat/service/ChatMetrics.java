@@ -0,0 +1,164 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of the chat hot path.
+ *
+ * <p>Meters, tagged by provider ({@code llm}) and {@code model} where applicable:</p>
+ * <ul>
+ *     <li>{@code chat.request.duration} - end-to-end request latency, tagged by {@code source} (cache or upstream)</li>
+ *     <li>{@code chat.upstream.duration} - provider call latency, tagged by {@code outcome}</li>
+ *     <li>{@code chat.upstream.ttft} - time to first token of streamed responses</li>
+ *     <li>{@code chat.upstream.inflight} - provider calls currently in progress</li>
+ *     <li>{@code chat.tokens} - prompt and completion tokens per call, tagged by {@code type}</li>
+ *     <li>{@code chat.tokens.throughput} - completion tokens per second of generation</li>
+ *     <li>{@code chat.upstream.cancelled} - provider calls abandoned before completion (client gone, hedge lost)</li>
+ *     <li>{@code chat.tokens.saved} - estimated completion tokens not generated because a call was abandoned</li>
+ *     <li>{@code chat.errors} - error responses, tagged by {@code errorCode}</li>
+ * </ul>
+ */
+@Component
+public class ChatMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<LLMType, AtomicInteger> inFlight = new EnumMap<>(LLMType.class);
+
+    /**
+     * @param registry registry the meters are published to
+     */
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (LLMType llmType : LLMType.values()) {
+            inFlight.put(llmType, registry.gauge("chat.upstream.inflight",
+                    Tags.of("llm", llmType.getValue()), new AtomicInteger()));
+        }
+    }
+
+    /**
+     * @param llmType provider that served the request
+     * @param fromCache whether the answer came from a cache
+     * @param nanos end-to-end duration
+     */
+    public void recordRequest(LLMType llmType, boolean fromCache, long nanos) {
+        Timer.builder("chat.request.duration")
+                .tags("llm", llmType.getValue(), "source", fromCache ? "cache" : "upstream")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param llmType the AI provider type
+     */
+    public void upstreamStarted(LLMType llmType) {
+        inFlight.get(llmType).incrementAndGet();
+    }
+
+    /**
+     * @param llmType the AI provider type
+     */
+    public void upstreamFinished(LLMType llmType) {
+        inFlight.get(llmType).decrementAndGet();
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @param model the model name
+     * @param nanos call duration
+     * @param success whether the call produced a response
+     */
+    public void recordUpstream(LLMType llmType, String model, long nanos, boolean success) {
+        Timer.builder("chat.upstream.duration")
+                .tags("llm", llmType.getValue(), "model", model, "outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @param model the model name
+     * @param nanos time from sending the request to the first streamed chunk
+     */
+    public void recordTimeToFirstToken(LLMType llmType, String model, long nanos) {
+        Timer.builder("chat.upstream.ttft")
+                .tags("llm", llmType.getValue(), "model", model)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @param model the model name
+     * @param promptTokens prompt tokens of the call
+     * @param completionTokens completion tokens of the call
+     * @param generationNanos time spent generating the completion
+     */
+    public void recordUsage(LLMType llmType, String model, int promptTokens, int completionTokens, long generationNanos) {
+        tokenSummary(llmType, model, "prompt").record(promptTokens);
+        tokenSummary(llmType, model, "completion").record(completionTokens);
+
+        if (completionTokens > 0 && generationNanos > 0) {
+            DistributionSummary.builder("chat.tokens.throughput")
+                    .baseUnit("tokens/s")
+                    .tags("llm", llmType.getValue(), "model", model)
+                    .register(registry)
+                    .record(completionTokens / (generationNanos / 1e9));
+        }
+    }
+
+    /**
+     * Counts an abandoned provider call and the completion tokens it is estimated to have
+     * saved: the provider's mean completion length less what was generated before the
+     * call was abandoned.
+     *
+     * @param llmType the AI provider type
+     * @param model the model name
+     * @param generatedTokens completion tokens generated before the call was abandoned
+     */
+    public void recordCancelled(LLMType llmType, String model, int generatedTokens) {
+        Counter.builder("chat.upstream.cancelled")
+                .tags("llm", llmType.getValue(), "model", model)
+                .register(registry)
+                .increment();
+
+        double saved = tokenSummary(llmType, model, "completion").mean() - generatedTokens;
+        if (saved > 0) {
+            Counter.builder("chat.tokens.saved")
+                    .baseUnit("tokens")
+                    .tags("llm", llmType.getValue(), "model", model)
+                    .register(registry)
+                    .increment(saved);
+        }
+    }
+
+    /**
+     * @param errorCode application-level error code returned to the client
+     */
+    public void recordError(String errorCode) {
+        Counter.builder("chat.errors")
+                .tag("errorCode", errorCode)
+                .register(registry)
+                .increment();
+    }
+
+    private DistributionSummary tokenSummary(LLMType llmType, String model, String type) {
+        return DistributionSummary.builder("chat.tokens")
+                .baseUnit("tokens")
+                .tags("llm", llmType.getValue(), "model", model, "type", type)
+                .register(registry);
+    }
+}
@@ -2,19 +2,39 @@ package org.sweetie.aichat.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.anthropic.AnthropicChatModel;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.ollama.OllamaChatModel;
-import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.retry.NonTransientAiException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.sweetie.aichat.dto.ChatRequest;
 import org.sweetie.aichat.dto.ChatResponse;
 import org.sweetie.aichat.exception.AIServiceException;
 import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.model.Priority;
+import org.sweetie.aichat.webconfig.DeadlineProperties;
+import org.sweetie.aichat.webconfig.RoutingProperties;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.Map;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service class responsible for routing chat messages to different AI providers
@@ -25,106 +45,783 @@ public class ChatService {
 
     private static final Logger log = LoggerFactory.getLogger(ChatService.class);
 
-    private final Map<LLMType, ChatClient> chatClients;
+    private final ChatClientRegistry chatClients;
     private final LLMType defaultProvider;
+    private final ProviderBulkhead bulkhead;
+    private final ResponseCache responseCache;
+    private final SemanticCache semanticCache;
+    private final RequestCoalescer requestCoalescer;
+    private final RoutingProperties.Mode routingMode;
+    private final AdaptiveRouter adaptiveRouter;
+    private final ProviderLatencyTracker latencyTracker;
+    private final HedgingExecutor hedgingExecutor;
+    private final ProviderCircuitBreaker circuitBreaker;
+    private final ProviderRateLimiter rateLimiter;
+    private final DeadlineProperties deadlines;
+    private final ConversationHistory conversations;
+    private final ChatMetrics metrics;
+    private final Scheduler upstreamScheduler;
 
     /**
      * Constructor initializes available AI clients and default provider.
      *
-     * @param openAiChatModel OpenAI model
-     * @param ollamaChatModel Ollama model
-     * @param geminiChatClient Gemini model
-     * @param anthropicChatModel Anthropic model
+     * @param chatClients client and model name of every provider
      * @param defaultProviderName default AI provider from configuration
+     * @param bulkhead per-provider concurrency limiter
+     * @param responseCache exact-match response cache
+     * @param semanticCache similarity-match response cache
+     * @param requestCoalescer single-flight coalescer for identical requests
+     * @param routingProperties how unpinned requests pick a provider
+     * @param adaptiveRouter latency-aware provider selection
+     * @param latencyTracker per-provider latency and error statistics
+     * @param hedgingExecutor hedges slow calls to an alternate provider
+     * @param circuitBreaker per-provider circuit breakers
+     * @param rateLimiter per-provider request and token quotas
+     * @param deadlines default and maximum time budgets of requests
+     * @param conversations history of conversation sessions
+     * @param metrics chat hot path instrumentation
+     * @param executor executor that reactive callers hand blocking steps to
      */
     public ChatService(
-            OpenAiChatModel openAiChatModel,
-            OllamaChatModel ollamaChatModel,
-            @Qualifier("geminiChatClient") ChatClient geminiChatClient,
-            AnthropicChatModel anthropicChatModel,
-            @Value("${spring.ai.default-provider}") String defaultProviderName) {
+            ChatClientRegistry chatClients,
+            @Value("${spring.ai.default-provider}") String defaultProviderName,
+            ProviderBulkhead bulkhead,
+            ResponseCache responseCache,
+            SemanticCache semanticCache,
+            RequestCoalescer requestCoalescer,
+            RoutingProperties routingProperties,
+            AdaptiveRouter adaptiveRouter,
+            ProviderLatencyTracker latencyTracker,
+            HedgingExecutor hedgingExecutor,
+            ProviderCircuitBreaker circuitBreaker,
+            ProviderRateLimiter rateLimiter,
+            DeadlineProperties deadlines,
+            ConversationHistory conversations,
+            ChatMetrics metrics,
+            @Qualifier("chatExecutor") ExecutorService executor) {
 
+        this.chatClients = chatClients;
         this.defaultProvider = LLMType.valueOf(defaultProviderName.toUpperCase());
+        if (!chatClients.isEnabled(defaultProvider)) {
+            throw new IllegalStateException("Default LLM provider " + defaultProviderName
+                    + " is not listed in chat.providers.enabled");
+        }
+        this.bulkhead = bulkhead;
+        this.responseCache = responseCache;
+        this.semanticCache = semanticCache;
+        this.requestCoalescer = requestCoalescer;
+        this.routingMode = routingProperties.mode();
+        this.adaptiveRouter = adaptiveRouter;
+        this.latencyTracker = latencyTracker;
+        this.hedgingExecutor = hedgingExecutor;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        this.deadlines = deadlines;
+        this.conversations = conversations;
+        this.metrics = metrics;
+        this.upstreamScheduler = Schedulers.fromExecutorService(executor, "chat-upstream");
+    }
 
-        // Map LLM types to their respective clients
-        this.chatClients = Map.of(
-                LLMType.OPENAI, ChatClient.create(openAiChatModel),
-                LLMType.OLLAMA, ChatClient.create(ollamaChatModel),
-                LLMType.GEMINI, geminiChatClient,
-                LLMType.ANTHROPIC, ChatClient.create(anthropicChatModel)
-        );
+    /**
+     * Processes a chat message at standard priority for the default tenant.
+     *
+     * @param request the chat request
+     * @return ChatResponse containing AI response and metadata
+     */
+    public ChatResponse processChat(ChatRequest request) {
+        return processChat(request, new Admission(Priority.STANDARD, null));
     }
 
     /**
      * Processes a chat message by routing it to the appropriate AI provider.
+     * Identical earlier requests, and with the semantic cache enabled paraphrases of
+     * them, are answered from cache, and identical concurrent requests share one
+     * upstream call. A request that opts out of the cache asked for a fresh answer, so
+     * it skips coalescing too.
+     * Slow calls may be hedged to an alternate provider. Requests with a session id
+     * have the session's history replayed and their exchange appended to it; once a
+     * session has history its answers depend on it, so they bypass the cache and
+     * coalescing. The request is given up with DEADLINE_EXCEEDED once its time budget,
+     * requested by the client or the configured default and capped per provider, runs out.
+     * A request that finds its provider full queues for a slot by its priority and tenant.
      *
-     * @param message the chat message
-     * @param llmName optional AI provider name
+     * @param request the chat request
+     * @param admission the request's priority and tenant
      * @return ChatResponse containing AI response and metadata
      */
-    public ChatResponse processChat(String message, String llmName) {
+    public ChatResponse processChat(ChatRequest request, Admission admission) {
 
-        LLMType llmType = resolveLlmType(llmName);
+        long start = System.nanoTime();
+        String message = request.message();
+        LLMType llmType = resolveLlmType(request.llm());
+        Deadline deadline = deadlineFor(request, llmType);
 
         log.info("Routing request to LLM: {}", llmType);
         log.debug("Processing message: {}", message);
 
+        List<Message> history = ConversationHistory.toMessages(
+                conversations.window(request.sessionId(), llmType, message));
+
+        CompletionResult result;
+        boolean fromCache = false;
+        if (history.isEmpty() && request.cacheEnabled()) {
+            String model = chatClients.modelName(llmType);
+            ResponseCache.Key cacheKey = ResponseCache.keyOf(message, llmType, model);
+            Optional<CompletionResult> cached = responseCache.get(cacheKey);
+            SemanticCache.Lookup lookup = SemanticCache.Lookup.NONE;
+            if (cached.isEmpty()) {
+                // A paraphrase of an earlier prompt is answered like an exact repeat
+                lookup = semanticCache.get(message, llmType, model);
+                cached = lookup.result();
+            }
+            SemanticCache.Lookup similar = lookup;
+            if (cached.isPresent()) {
+                log.debug("Response cache hit for LLM {}", llmType);
+                result = cached.get();
+                fromCache = true;
+            } else {
+                // Identical concurrent requests share a single upstream call
+                result = requestCoalescer.execute(cacheKey, deadline, () -> {
+                    CompletionResult completion = hedgingExecutor.execute(llmType, deadline,
+                            provider -> callProvider(acquireProvider(provider, deadline), message, List.of(),
+                                    deadline, admission));
+                    cacheResult(message, similar, completion);
+                    return completion;
+                });
+            }
+        } else {
+            // Sessions and callers opting out of the cache get an answer of their own
+            result = hedgingExecutor.execute(llmType, deadline,
+                    provider -> callProvider(acquireProvider(provider, deadline), message, history, deadline, admission));
+        }
+
+        return complete(request, result, fromCache, start);
+    }
+
+    /**
+     * Runs {@link #processChat} on the chat executor, for servlet callers that can only
+     * learn of a client disconnect from the container's async callbacks. Cancelling the
+     * Mono interrupts the call, which aborts its upstream HTTP request and any hedge.
+     *
+     * @param request the chat request
+     * @param admission the request's priority and tenant
+     * @return Mono of the ChatResponse containing AI response and metadata
+     */
+    public Mono<ChatResponse> processChatAsync(ChatRequest request, Admission admission) {
+        return Mono.fromCallable(() -> processChat(request, admission)).subscribeOn(upstreamScheduler);
+    }
+
+    /**
+     * Reactive variant of {@link #processChat} for the WebFlux controller. The completion
+     * is read through the provider's streaming API and collected, so no thread waits on
+     * the upstream call. Caching, coalescing and the per-provider limits apply as in
+     * {@link #processChat}; slow calls are not hedged. Steps that may block, such as
+     * waiting for a bulkhead slot or embedding the prompt, run on the chat executor.
+     * Cancelling the Mono, as the server does when the client disconnects, cancels the
+     * provider stream.
+     *
+     * @param request the chat request
+     * @param admission the request's priority and tenant
+     * @return Mono of the ChatResponse containing AI response and metadata
+     */
+    public Mono<ChatResponse> processChatReactive(ChatRequest request, Admission admission) {
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            LLMType llmType = resolveLlmType(request.llm());
+            Deadline deadline = deadlineFor(request, llmType);
+
+            log.info("Routing reactive request to LLM: {}", llmType);
+            log.debug("Processing message: {}", request.message());
+
+            // Timing out cancels the provider stream along with the rest of the chain
+            return answerReactive(request, llmType, deadline, admission, start)
+                    .timeout(deadline.remaining(), Mono.error(deadline::exceeded));
+        });
+    }
+
+    /**
+     * Answers a reactive request from cache or the provider.
+     */
+    private Mono<ChatResponse> answerReactive(ChatRequest request, LLMType llmType, Deadline deadline,
+                                              Admission admission, long start) {
+
+        String message = request.message();
+        List<Message> history = ConversationHistory.toMessages(
+                conversations.window(request.sessionId(), llmType, message));
+        if (!history.isEmpty() || !request.cacheEnabled()) {
+            return collectFromProvider(llmType, message, history, deadline, admission)
+                    .map(result -> complete(request, result, false, start));
+        }
+
+        String model = chatClients.modelName(llmType);
+        ResponseCache.Key cacheKey = ResponseCache.keyOf(message, llmType, model);
+        Optional<CompletionResult> cached = responseCache.get(cacheKey);
+        if (cached.isPresent()) {
+            log.debug("Response cache hit for LLM {}", llmType);
+            return Mono.just(complete(request, cached.get(), true, start));
+        }
+
+        Mono<SemanticCache.Lookup> lookup = semanticCache.isEnabled()
+                ? Mono.fromCallable(() -> semanticCache.get(message, llmType, model)).subscribeOn(upstreamScheduler)
+                : Mono.just(SemanticCache.Lookup.NONE);
+
+        return lookup.flatMap(similar -> {
+            if (similar.result().isPresent()) {
+                log.debug("Semantic cache hit for LLM {}", llmType);
+                return Mono.just(complete(request, similar.result().get(), true, start));
+            }
+            return requestCoalescer.executeReactive(cacheKey,
+                            () -> collectFromProvider(llmType, message, List.of(), deadline, admission)
+                                    .doOnNext(completion -> cacheResult(message, similar, completion)))
+                    .map(result -> complete(request, result, false, start));
+        });
+    }
+
+    /**
+     * Caches an upstream answer under the provider and model that produced it, which a
+     * winning hedge or a circuit-breaker fallback may have made differ from the ones
+     * requested, so a request pinned to a provider only ever gets that provider's answers.
+     */
+    private void cacheResult(String message, SemanticCache.Lookup similar, CompletionResult completion) {
+
+        LLMType provider = completion.llmType();
+        String model = chatClients.modelName(provider);
+        responseCache.put(ResponseCache.keyOf(message, provider, model), completion);
+        semanticCache.put(similar, provider, model, completion);
+    }
+
+    /**
+     * Records a finished exchange in its session and metrics and builds the response.
+     */
+    private ChatResponse complete(ChatRequest request, CompletionResult result, boolean fromCache, long start) {
+
+        conversations.record(request.sessionId(), request.message(), result.content());
+        metrics.recordRequest(result.llmType(), fromCache, System.nanoTime() - start);
+        return toChatResponse(result, request.message());
+    }
+
+    /**
+     * Ends a conversation session and discards its history.
+     *
+     * @param sessionId the session id
+     */
+    public void endSession(String sessionId) {
+        conversations.end(sessionId);
+    }
+
+    /**
+     * Starts the request's time budget.
+     *
+     * @param request the chat request, possibly asking for a budget
+     * @param llmType the resolved provider, whose cap applies
+     * @return deadline of the request
+     */
+    private Deadline deadlineFor(ChatRequest request, LLMType llmType) {
+        return Deadline.after(deadlines.budgetFor(llmType, request.timeoutMs()));
+    }
+
+    /**
+     * Obtains circuit breaker permission for the provider, failing over to its
+     * configured fallback while the provider's breaker is open.
+     *
+     * @param llmType the requested AI provider type
+     * @param deadline the request's deadline; no provider is tried once it has passed
+     * @return the provider that may be called; its breaker permission is held
+     * @throws AIServiceException if neither the provider nor its fallback may be called
+     */
+    private LLMType acquireProvider(LLMType llmType, Deadline deadline) {
+
+        deadline.check();
+
+        if (circuitBreaker.tryAcquire(llmType)) {
+            return llmType;
+        }
+
+        Optional<LLMType> fallback = circuitBreaker.fallbackFor(llmType)
+                .filter(chatClients::isEnabled)
+                .filter(circuitBreaker::tryAcquire);
+        if (fallback.isPresent()) {
+            log.warn("Circuit open for LLM {}, failing over to {}", llmType, fallback.get());
+            return fallback.get();
+        }
+
+        log.warn("Circuit open for LLM {}, failing fast", llmType);
+        throw new AIServiceException(
+                "CIRCUIT_OPEN",
+                "AI provider " + llmType.getValue() + " is temporarily unavailable"
+        );
+    }
+
+    /**
+     * Looks up the provider's client, building it on first use. The caller holds the
+     * provider's breaker permission, which is handed back if the client cannot be built.
+     *
+     * @param llmType the AI provider type, already known to be enabled
+     * @return the provider's client
+     * @throws AIServiceException if building the client fails
+     */
+    private ChatClient clientFor(LLMType llmType) {
+        try {
+            return chatClients.chatClient(llmType);
+        } catch (RuntimeException ex) {
+            circuitBreaker.release(llmType);
+            log.error("Could not build client for LLM {}", llmType, ex);
+            throw new AIServiceException("AI service is unavailable", ex);
+        }
+    }
+
+    /**
+     * Takes rate limit quota and a bulkhead slot for the call, handing back whatever
+     * was already taken, including the breaker permission, if either is unavailable.
+     *
+     * @param llmType the AI provider type
+     * @param promptTokens estimated tokens of the prompt, history included
+     * @param deadline the request's deadline, bounding both waits
+     * @param admission the request's priority and tenant, deciding its place in the bulkhead's line
+     * @return the rate limit reservation to reconcile after the call
+     */
+    private ProviderRateLimiter.Reservation acquireSlot(LLMType llmType, int promptTokens, Deadline deadline,
+                                                        Admission admission) {
+
+        ProviderRateLimiter.Reservation reservation;
+        try {
+            reservation = rateLimiter.acquire(llmType, promptTokens, deadline);
+        } catch (RuntimeException ex) {
+            circuitBreaker.release(llmType);
+            throw ex;
+        }
+
+        try {
+            bulkhead.acquire(llmType, deadline, admission);
+        } catch (RuntimeException ex) {
+            rateLimiter.refund(reservation);
+            circuitBreaker.release(llmType);
+            throw ex;
+        }
+        return reservation;
+    }
+
+    /**
+     * Sends the message to the provider while holding one of its bulkhead slots.
+     * The caller must already hold circuit breaker permission for the provider.
+     *
+     * @param llmType the AI provider type
+     * @param message the chat message
+     * @param history earlier turns of the conversation, oldest first
+     * @param deadline the request's deadline
+     * @param admission the request's priority and tenant
+     * @return the AI response and the provider that produced it
+     */
+    private CompletionResult callProvider(LLMType llmType, String message, List<Message> history, Deadline deadline,
+                                          Admission admission) {
+
         // Get the corresponding chat client
-        ChatClient chatClient = getChatClient(llmType);
+        ChatClient chatClient = clientFor(llmType);
+
+        // Wait for quota and a free slot on this provider; fails fast when it is saturated
+        int estimatedPromptTokens = ConversationHistory.estimatePromptTokens(history, message);
+        ProviderRateLimiter.Reservation reservation = acquireSlot(llmType, estimatedPromptTokens, deadline, admission);
 
+        String model = chatClients.modelName(llmType);
+        metrics.upstreamStarted(llmType);
+        long start = System.nanoTime();
         try {
             // Send the message to the AI client and get the response
-            String response = chatClient.prompt()
+            org.springframework.ai.chat.model.ChatResponse chatResponse = chatClient.prompt()
+                    .messages(history)
                     .user(message)
                     .call()
-                    .content();
+                    .chatResponse();
 
-            return new ChatResponse(
-                    response,
-                    llmType.name(),
-                    message,
-                    System.currentTimeMillis()
-            );
+            long elapsed = System.nanoTime() - start;
+            String text = textOf(chatResponse);
+            Usage usage = usageOf(chatResponse);
+            int promptTokens = tokens(usage == null ? null : usage.getPromptTokens());
+            int completionTokens = tokens(usage == null ? null : usage.getCompletionTokens());
+
+            latencyTracker.record(llmType, elapsed, true);
+            circuitBreaker.onSuccess(llmType, elapsed);
+            bulkhead.onCallCompleted(llmType, elapsed,
+                    completionTokens > 0 ? completionTokens : TokenEstimator.estimate(text.length()));
+            metrics.recordUpstream(llmType, model, elapsed, true);
+            rateLimiter.reconcile(reservation, promptTokens, completionTokens);
+            metrics.recordUsage(llmType, model, promptTokens, completionTokens, elapsed);
+
+            return new CompletionResult(text, llmType, promptTokens, completionTokens);
 
         } catch (Exception ex) {
+            long elapsed = System.nanoTime() - start;
+            if (isCancellation(ex)) {
+                // The prompt was already sent and counts against the quota; only the completion estimate is returned
+                rateLimiter.reconcile(reservation, estimatedPromptTokens, 0);
+                metrics.recordCancelled(llmType, model, 0);
+                if (!deadline.isExpired()) {
+                    // A hedge loser, or a client that went away, says nothing about provider health
+                    log.debug("Call to LLM {} was cancelled", llmType);
+                    circuitBreaker.release(llmType);
+                    throw new AIServiceException("REQUEST_CANCELLED", "Request was cancelled", ex);
+                }
+                // Cut off by the deadline: the provider was too slow to answer in time
+                log.warn("Call to LLM {} was cut off by the deadline after {} ms", llmType, elapsed / 1_000_000);
+                recordFailure(llmType, model, elapsed, true);
+                throw deadline.exceeded();
+            }
+            recordFailure(llmType, model, elapsed, isProviderFault(ex));
             log.error("Error calling LLM {}", llmType, ex);
             throw new AIServiceException(
                     "AI service is unavailable",
                     ex
             );
+        } finally {
+            metrics.upstreamFinished(llmType);
+            bulkhead.release(llmType);
         }
     }
 
+    /**
+     * Streams a chat completion from the appropriate AI provider as it is generated.
+     * Chunks are emitted as soon as the provider sends them, so the full completion
+     * is never buffered in memory, except for session requests, whose reply is
+     * collected so it can be appended to the session once the stream completes.
+     * Demand from the subscriber is passed through to the provider's stream, so a slow
+     * client slows upstream reads rather than having chunks queue up in memory. A stream
+     * still running when the request's deadline passes ends with DEADLINE_EXCEEDED.
+     *
+     * @param request the chat request
+     * @param admission the request's priority and tenant
+     * @return Flux of response chunks in arrival order
+     */
+    public Flux<String> streamChat(ChatRequest request, Admission admission) {
+
+        String message = request.message();
+        LLMType llmType = resolveLlmType(request.llm());
+
+        log.info("Streaming request to LLM: {}", llmType);
+        log.debug("Processing message: {}", message);
+
+        Deadline deadline = deadlineFor(request, llmType);
+        String sessionId = request.sessionId();
+        List<Message> history = ConversationHistory.toMessages(conversations.window(sessionId, llmType, message));
+
+        return Flux.defer(() -> {
+                    Flux<String> chunks = streamFromProvider(acquireProvider(llmType, deadline), message, history,
+                            deadline, admission);
+                    if (sessionId == null) {
+                        return chunks;
+                    }
+                    StringBuilder reply = new StringBuilder();
+                    return chunks
+                            .doOnNext(reply::append)
+                            .doOnComplete(() -> conversations.record(sessionId, message, reply.toString()));
+                })
+                // Waiting for a bulkhead slot blocks, so never do it on a reactive server's event loop;
+                // requests from the subscriber still go straight to the provider's stream
+                .subscribeOn(upstreamScheduler, false)
+                .transform(chunks -> cutOffAt(chunks, deadline))
+                .onErrorMap(ex -> !(ex instanceof AIServiceException), ex -> {
+                    log.error("Error streaming from LLM {}", llmType, ex);
+                    return new AIServiceException("AI service is unavailable", ex);
+                });
+    }
+
+    /**
+     * Ends the stream with DEADLINE_EXCEEDED once the deadline passes, cancelling it
+     * upstream so the provider stream is closed and its slot freed. takeUntilOther only
+     * cancels its source when the other publisher emits, not when it fails, so the
+     * deadline is signalled as a value and turned into the error after the source is gone.
+     *
+     * @param stream the stream to bound
+     * @param deadline the request's deadline
+     * @return the stream, cut off at the deadline
+     */
+    private static <T> Flux<T> cutOffAt(Flux<T> stream, Deadline deadline) {
+
+        return Flux.defer(() -> {
+            AtomicBoolean cutOff = new AtomicBoolean();
+            return stream
+                    .takeUntilOther(Mono.delay(deadline.remaining()).doOnNext(tick -> cutOff.set(true)))
+                    .concatWith(Mono.defer(() -> cutOff.get() ? Mono.error(deadline.exceeded()) : Mono.empty()));
+        });
+    }
+
+    /**
+     * Collects the provider's streamed completion into a single result. Token counts
+     * are estimated here; the rate limiter is reconciled with reported usage while
+     * streaming.
+     *
+     * @param llmType the requested AI provider type
+     * @param message the chat message
+     * @param history earlier turns of the conversation, oldest first
+     * @param deadline the request's deadline
+     * @param admission the request's priority and tenant
+     * @return Mono of the complete AI response and the provider that produced it
+     */
+    private Mono<CompletionResult> collectFromProvider(LLMType llmType, String message, List<Message> history,
+                                                       Deadline deadline, Admission admission) {
+
+        return Mono.defer(() -> {
+                    LLMType provider = acquireProvider(llmType, deadline);
+                    return streamFromProvider(provider, message, history, deadline, admission)
+                            .collect(StringBuilder::new, StringBuilder::append)
+                            .map(reply -> new CompletionResult(reply.toString(), provider,
+                                    ConversationHistory.estimatePromptTokens(history, message),
+                                    TokenEstimator.estimate(reply.length())));
+                })
+                .subscribeOn(upstreamScheduler)
+                .onErrorMap(ex -> !(ex instanceof AIServiceException), ex -> {
+                    log.error("Error calling LLM {}", llmType, ex);
+                    return new AIServiceException("AI service is unavailable", ex);
+                });
+    }
+
+    /**
+     * Streams the completion from the provider while holding one of its bulkhead slots.
+     * The caller must already hold circuit breaker permission for the provider; the
+     * breaker judges slowness by time to first chunk, since stream length varies.
+     *
+     * @param llmType the AI provider type
+     * @param message the chat message
+     * @param history earlier turns of the conversation, oldest first
+     * @param deadline the request's deadline, bounding the wait for a slot; a stream it cuts off counts as failed
+     * @param admission the request's priority and tenant
+     * @return Flux of response chunks in arrival order
+     */
+    private Flux<String> streamFromProvider(LLMType llmType, String message, List<Message> history,
+                                            Deadline deadline, Admission admission) {
+
+        ChatClient chatClient = clientFor(llmType);
+        String model = chatClients.modelName(llmType);
+        int estimatedPromptTokens = ConversationHistory.estimatePromptTokens(history, message);
+
+        // The slot is held for the whole stream and released on complete, error or cancel
+        return Flux.using(
+                () -> {
+                    ProviderRateLimiter.Reservation reservation = acquireSlot(llmType, estimatedPromptTokens, deadline,
+                            admission);
+                    metrics.upstreamStarted(llmType);
+                    return reservation;
+                },
+                reservation -> {
+                    long start = System.nanoTime();
+                    AtomicLong firstChunkNanos = new AtomicLong();
+                    AtomicLong streamedChars = new AtomicLong();
+                    AtomicReference<Usage> lastUsage = new AtomicReference<>();
+                    return chatClient.prompt()
+                            .messages(history)
+                            .user(message)
+                            .stream()
+                            .chatResponse()
+                            .doOnNext(chunk -> {
+                                Usage usage = usageOf(chunk);
+                                if (usage != null && tokens(usage.getTotalTokens()) > 0) {
+                                    lastUsage.set(usage);
+                                }
+                            })
+                            .map(ChatService::textOf)
+                            .filter(text -> !text.isEmpty())
+                            .doOnNext(text -> {
+                                if (firstChunkNanos.compareAndSet(0, System.nanoTime() - start)) {
+                                    metrics.recordTimeToFirstToken(llmType, model, firstChunkNanos.get());
+                                }
+                                streamedChars.addAndGet(text.length());
+                            })
+                            .doOnComplete(() -> {
+                                long elapsed = System.nanoTime() - start;
+                                latencyTracker.record(llmType, elapsed, true);
+                                circuitBreaker.onSuccess(llmType, firstChunkNanos.get());
+                                bulkhead.onStreamCompleted(llmType, firstChunkNanos.get());
+                                metrics.recordUpstream(llmType, model, elapsed, true);
+
+                                // Not every provider reports usage on streams; fall back to an estimate
+                                Usage usage = lastUsage.get();
+                                int promptTokens = usage == null
+                                        ? estimatedPromptTokens
+                                        : tokens(usage.getPromptTokens());
+                                int completionTokens = usage == null
+                                        ? TokenEstimator.estimate(streamedChars.get())
+                                        : tokens(usage.getCompletionTokens());
+                                rateLimiter.reconcile(reservation, promptTokens, completionTokens);
+                                metrics.recordUsage(llmType, model, promptTokens, completionTokens,
+                                        elapsed - firstChunkNanos.get());
+                            })
+                            .doOnError(ex -> recordFailure(llmType, model, System.nanoTime() - start, isProviderFault(ex)))
+                            .doOnCancel(() -> {
+                                if (deadline.isExpired()) {
+                                    // Cut off by the deadline: the provider was too slow to finish in time
+                                    log.warn("Stream from LLM {} was cut off by the deadline", llmType);
+                                    recordFailure(llmType, model, System.nanoTime() - start, true);
+                                } else {
+                                    // The client went away, which says nothing about provider health
+                                    log.debug("Stream from LLM {} was cancelled", llmType);
+                                    circuitBreaker.release(llmType);
+                                }
+                                // The provider stream is closed, so only what was read is billed
+                                int completionTokens = TokenEstimator.estimate(streamedChars.get());
+                                rateLimiter.reconcile(reservation, estimatedPromptTokens, completionTokens);
+                                metrics.recordCancelled(llmType, model, completionTokens);
+                            });
+                },
+                reservation -> {
+                    metrics.upstreamFinished(llmType);
+                    bulkhead.release(llmType);
+                });
+    }
+
+    /**
+     * Feeds a failed or timed-out call to the latency tracker, circuit breaker and
+     * concurrency limit if the provider is at fault. A request the provider rejected, such
+     * as an over-long prompt or a bad key, says nothing about its health, so only its
+     * breaker permission is given back. Either way the permission taken for the call is settled.
+     *
+     * @param llmType the AI provider type
+     * @param model the model name
+     * @param elapsedNanos time from sending the request to the failure
+     * @param providerFault whether the provider failed or was overloaded, see {@link #isProviderFault}
+     */
+    private void recordFailure(LLMType llmType, String model, long elapsedNanos, boolean providerFault) {
+        if (providerFault) {
+            latencyTracker.record(llmType, elapsedNanos, false);
+            circuitBreaker.onError(llmType, elapsedNanos);
+            bulkhead.onOverload(llmType);
+        } else {
+            circuitBreaker.release(llmType);
+        }
+        metrics.recordUpstream(llmType, model, elapsedNanos, false);
+    }
+
     /**
      * Resolves the LLM type based on user input or default provider.
+     * Unpinned requests, and requests asking for "auto", are routed to the fastest
+     * healthy provider when auto routing is enabled. Package-private so the
+     * routing benchmark can drive it directly.
      *
      * @param llmName optional AI provider name
      * @return resolved LLMType
+     * @throws IllegalArgumentException if the named provider is unknown or not enabled
      */
-    private LLMType resolveLlmType(String llmName) {
+    LLMType resolveLlmType(String llmName) {
+
+        boolean unpinned = llmName == null || llmName.isBlank();
 
-        if (llmName == null || llmName.isBlank()) {
+        if ("auto".equalsIgnoreCase(llmName) || (unpinned && routingMode == RoutingProperties.Mode.AUTO)) {
+            LLMType selected = adaptiveRouter.selectFastest().orElse(defaultProvider);
+            log.info("Auto-routing request to: {}", selected);
+            return selected;
+        }
+
+        if (unpinned) {
             log.info("No provider specified. Using default: {}", defaultProvider);
             return defaultProvider;
         }
 
+        LLMType llmType;
         try {
-            return LLMType.valueOf(llmName.toUpperCase());
+            llmType = LLMType.valueOf(llmName.toUpperCase());
         } catch (IllegalArgumentException ex) {
             throw new IllegalArgumentException("Unsupported LLM type: " + llmName);
         }
+        // Rejected here, so blocking and streaming requests both answer 400 before any provider is touched
+        if (!chatClients.isEnabled(llmType)) {
+            throw new IllegalArgumentException("Unsupported LLM type: " + llmName);
+        }
+        return llmType;
     }
 
     /**
-     * Retrieves the ChatClient for a given LLM type.
+     * Wraps provider output in the API response DTO.
      *
-     * @param llmType the AI provider type
-     * @return ChatClient associated with the provider
+     * @param result the AI response and the provider that produced it
+     * @param message the original user message
+     * @return ChatResponse stamped with the current time
      */
-    private ChatClient getChatClient(LLMType llmType) {
+    private ChatResponse toChatResponse(CompletionResult result, String message) {
+
+        return new ChatResponse(
+                result.content(),
+                result.llmType().name(),
+                message,
+                System.currentTimeMillis()
+        );
+    }
 
-        return Optional.ofNullable(chatClients.get(llmType))
-                .orElseThrow(() ->
-                        new IllegalArgumentException("Unsupported LLM type: " + llmType));
+    /**
+     * Extracts the generated text from a provider response or stream chunk.
+     *
+     * @param chatResponse the provider response
+     * @return generated text, or an empty string if the response carries none
+     */
+    private static String textOf(org.springframework.ai.chat.model.ChatResponse chatResponse) {
+
+        if (chatResponse == null || chatResponse.getResult() == null
+                || chatResponse.getResult().getOutput() == null) {
+            return "";
+        }
+        String text = chatResponse.getResult().getOutput().getText();
+        return text == null ? "" : text;
+    }
+
+    /**
+     * @param chatResponse the provider response
+     * @return token usage reported by the provider, or null if none
+     */
+    private static Usage usageOf(org.springframework.ai.chat.model.ChatResponse chatResponse) {
+
+        if (chatResponse == null || chatResponse.getMetadata() == null) {
+            return null;
+        }
+        return chatResponse.getMetadata().getUsage();
+    }
+
+    private static int tokens(Integer count) {
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Tells failures that mean the provider is overloaded or failing, such as upstream 429s,
+     * 5xx responses, timeouts and connection errors, from client errors such as a rejected
+     * prompt or bad credentials, which say nothing about its health or load.
+     *
+     * @param ex the failure
+     * @return false if the provider answered with a 4xx status other than 429
+     */
+    private static boolean isProviderFault(Throwable ex) {
+
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            HttpStatusCode status = null;
+            if (cause instanceof RestClientResponseException responseEx) {
+                status = responseEx.getStatusCode();
+            } else if (cause instanceof WebClientResponseException responseEx) {
+                status = responseEx.getStatusCode();
+            } else if (cause instanceof NonTransientAiException) {
+                // Spring AI reports every 4xx this way, the message starting with the status code
+                return cause.getMessage() != null
+                        && cause.getMessage().startsWith(String.valueOf(HttpStatus.TOO_MANY_REQUESTS.value()));
+            }
+            if (status != null) {
+                return !status.is4xxClientError() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Detects failures caused by the calling thread being interrupted or cancelled.
+     *
+     * @param ex the failure
+     * @return true if any cause in the chain signals cancellation
+     */
+    private static boolean isCancellation(Throwable ex) {
+
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException
+                    // A socket read timeout is an InterruptedIOException too, but a provider failure
+                    || (cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException))
+                    || cause instanceof ClosedByInterruptException
+                    || cause instanceof CancellationException) {
+                return true;
+            }
+        }
+        return Thread.currentThread().isInterrupted();
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package org.sweetie.aichat.service;
+
+import org.sweetie.aichat.model.LLMType;
+
+/**
+ * Text produced by an upstream call, together with the provider that actually answered.
+ *
+ * @param content the AI response text
+ * @param llmType the provider that produced it
+ * @param promptTokens prompt tokens reported by the provider, or 0 if unknown
+ * @param completionTokens completion tokens reported by the provider, or 0 if unknown
+ */
+public record CompletionResult(
+        String content,
+        LLMType llmType,
+        int promptTokens,
+        int completionTokens) { }
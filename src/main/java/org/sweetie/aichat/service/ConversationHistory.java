@@ -0,0 +1,119 @@
+package org.sweetie.aichat.service;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.ConversationTurn;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.SessionProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays conversation history for requests that carry a session id.
+ *
+ * <p>Clients send only their new message; the stored turns are prepended to the prompt,
+ * newest first until the provider's token budget is spent, so upstream prompts stay
+ * bounded however long the conversation runs.</p>
+ */
+@Component
+public class ConversationHistory {
+
+    private final ConversationStore store;
+    private final SessionProperties properties;
+
+    /**
+     * @param store where session turns are kept
+     * @param properties token budgets and session bounds
+     */
+    public ConversationHistory(ConversationStore store, SessionProperties properties) {
+        this.store = store;
+        this.properties = properties;
+    }
+
+    /**
+     * Selects the most recent turns that fit the provider's budget: its context window
+     * minus the new message and the space reserved for the reply, capped at
+     * {@code max-history-tokens}.
+     *
+     * @param sessionId the session id, or null for a stateless request
+     * @param llmType the provider the prompt is sent to
+     * @param message the new user message
+     * @return turns to replay, oldest first; empty for stateless requests and new sessions
+     */
+    public List<ConversationTurn> window(String sessionId, LLMType llmType, String message) {
+
+        if (!properties.enabled() || sessionId == null) {
+            return List.of();
+        }
+
+        List<ConversationTurn> turns = store.history(sessionId);
+        long budget = Math.min(properties.maxHistoryTokens(),
+                (long) properties.contextTokensFor(llmType)
+                        - properties.reservedCompletionTokens()
+                        - TokenEstimator.estimate(message));
+
+        int first = turns.size();
+        long used = 0;
+        while (first > 0 && used + turns.get(first - 1).tokens() <= budget) {
+            used += turns.get(--first).tokens();
+        }
+        return turns.subList(first, turns.size());
+    }
+
+    /**
+     * Stores a completed exchange in the session.
+     *
+     * @param sessionId the session id, or null for a stateless request
+     * @param message the user message
+     * @param reply the returned reply
+     */
+    public void record(String sessionId, String message, String reply) {
+
+        if (!properties.enabled() || sessionId == null) {
+            return;
+        }
+        int tokens = TokenEstimator.estimate(message) + TokenEstimator.estimate(reply);
+        store.append(sessionId, new ConversationTurn(message, reply, tokens), properties.maxHistoryTokens());
+    }
+
+    /**
+     * Ends a session and drops its history.
+     *
+     * @param sessionId the session id
+     */
+    public void end(String sessionId) {
+        store.remove(sessionId);
+    }
+
+    /**
+     * @param turns turns to replay
+     * @return the turns as alternating user and assistant prompt messages
+     */
+    public static List<Message> toMessages(List<ConversationTurn> turns) {
+
+        List<Message> messages = new ArrayList<>(turns.size() * 2);
+        for (ConversationTurn turn : turns) {
+            messages.add(new UserMessage(turn.userMessage()));
+            messages.add(new AssistantMessage(turn.assistantMessage()));
+        }
+        return messages;
+    }
+
+    /**
+     * @param history replayed messages, as built by {@link #toMessages}
+     * @param message the new user message
+     * @return estimated prompt tokens of the history and the message together
+     */
+    public static int estimatePromptTokens(List<Message> history, String message) {
+
+        long characters = message.length();
+        for (Message turn : history) {
+            String text = turn.getText();
+            characters += text == null ? 0 : text.length();
+        }
+        return TokenEstimator.estimate(characters);
+    }
+}
@@ -0,0 +1,40 @@
+package org.sweetie.aichat.service;
+
+import org.sweetie.aichat.model.ConversationTurn;
+
+import java.util.List;
+
+/**
+ * Keeps the turns of conversation sessions. Implementations bound the history they keep
+ * per session and evict idle sessions.
+ */
+public interface ConversationStore {
+
+    /**
+     * @param sessionId the session id
+     * @return the session's turns, oldest first; empty for unknown or evicted sessions
+     */
+    List<ConversationTurn> history(String sessionId);
+
+    /**
+     * Appends a turn, creating the session if needed and dropping its oldest turns when
+     * the history exceeds {@code maxHistoryTokens}.
+     *
+     * @param sessionId the session id
+     * @param turn the completed exchange
+     * @param maxHistoryTokens token budget of the stored history
+     */
+    void append(String sessionId, ConversationTurn turn, int maxHistoryTokens);
+
+    /**
+     * Ends a session.
+     *
+     * @param sessionId the session id
+     */
+    void remove(String sessionId);
+
+    /**
+     * @return approximate number of sessions held
+     */
+    long sessionCount();
+}
@@ -0,0 +1,57 @@
+package org.sweetie.aichat.service;
+
+import org.sweetie.aichat.exception.DeadlineExceededException;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which a request must be answered, carried through routing, queueing
+ * for provider slots, hedging, failover and the upstream call.
+ *
+ * @param budget time the request was given
+ * @param expiresAtNanos {@link System#nanoTime()} at which the budget runs out
+ */
+public record Deadline(Duration budget, long expiresAtNanos) {
+
+    /**
+     * @param budget time the request is given from now
+     * @return deadline expiring once the budget has elapsed
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(budget, System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * @return nanoseconds left, or 0 once expired
+     */
+    public long remainingNanos() {
+        return Math.max(0, expiresAtNanos - System.nanoTime());
+    }
+
+    /**
+     * @return time left, or zero once expired
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() == 0;
+    }
+
+    /**
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public void check() {
+        if (isExpired()) {
+            throw exceeded();
+        }
+    }
+
+    /**
+     * @return the exception reporting that this deadline passed
+     */
+    public DeadlineExceededException exceeded() {
+        return new DeadlineExceededException(budget);
+    }
+}
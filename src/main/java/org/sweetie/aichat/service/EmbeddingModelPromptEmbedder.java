@@ -0,0 +1,38 @@
+package org.sweetie.aichat.service;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.function.Supplier;
+
+/**
+ * Embeds prompts with a Spring AI embedding model, e.g. Ollama's. The model is obtained on
+ * first use, so it is never built while the semantic cache is disabled.
+ */
+public class EmbeddingModelPromptEmbedder implements PromptEmbedder {
+
+    private final Supplier<? extends EmbeddingModel> embeddingModel;
+    private volatile int dimensions = -1;
+
+    /**
+     * @param embeddingModel supplies the model producing embeddings
+     */
+    public EmbeddingModelPromptEmbedder(Supplier<? extends EmbeddingModel> embeddingModel) {
+        this.embeddingModel = embeddingModel;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return PromptEmbedder.normalize(embeddingModel.get().embed(text));
+    }
+
+    /**
+     * Asks the model on first use, which costs one embedding call.
+     */
+    @Override
+    public int dimensions() {
+        if (dimensions < 0) {
+            dimensions = embeddingModel.get().dimensions();
+        }
+        return dimensions;
+    }
+}
@@ -0,0 +1,51 @@
+package org.sweetie.aichat.service;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Local embedder that needs no model: hashes lower-cased words and word bigrams into a
+ * fixed number of signed buckets. It recognizes reworded prompts that share most of their
+ * words, not true paraphrases, but costs microseconds and works offline.
+ */
+public class HashingPromptEmbedder implements PromptEmbedder {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int dimensions;
+
+    /**
+     * @param dimensions number of hash buckets
+     */
+    public HashingPromptEmbedder(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+
+        float[] vector = new float[dimensions];
+        String previous = null;
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            add(vector, word, 1f);
+            if (previous != null) {
+                add(vector, previous + ' ' + word, 0.5f);
+            }
+            previous = word;
+        }
+        return PromptEmbedder.normalize(vector);
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private void add(float[] vector, String feature, float weight) {
+        int hash = feature.hashCode() * 0x9E3779B9;
+        vector[Math.floorMod(hash, dimensions)] += (hash & 0x80000000) == 0 ? weight : -weight;
+    }
+}
@@ -0,0 +1,155 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.exception.AIServiceException;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.HedgingProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Issues a backup request to an alternate provider when the primary is slow, returns
+ * whichever answers first and cancels the other.
+ *
+ * <p>The hedge fires after a fixed delay, or after the primary's observed p95 latency
+ * once enough samples exist, unless the request's deadline would pass first.
+ * {@code chat.hedge.fired} and {@code chat.hedge.won} count how often hedges are sent
+ * and how often they beat the primary.</p>
+ */
+@Component
+public class HedgingExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgingExecutor.class);
+
+    private final HedgingProperties properties;
+    private final ProviderLatencyTracker latencyTracker;
+    private final ChatClientRegistry chatClients;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param properties hedging delay and alternate providers
+     * @param latencyTracker source of observed p95 latency
+     * @param chatClients registry; alternates that are not enabled are never hedged to
+     * @param executor executor running the primary and hedge calls
+     * @param meterRegistry registry receiving hedge counters
+     */
+    public HedgingExecutor(
+            HedgingProperties properties,
+            ProviderLatencyTracker latencyTracker,
+            ChatClientRegistry chatClients,
+            @Qualifier("chatExecutor") ExecutorService executor,
+            MeterRegistry meterRegistry) {
+
+        this.properties = properties;
+        this.latencyTracker = latencyTracker;
+        this.chatClients = chatClients;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs the call against the primary provider, hedging to its alternate if it is slow.
+     * Calls run on the executor so that the caller can stop waiting when the deadline
+     * passes; calls still running then are interrupted, abandoning their HTTP requests.
+     *
+     * @param primary the provider chosen for the request
+     * @param deadline the request's deadline
+     * @param call performs the upstream call for a given provider
+     * @return result from whichever provider answered first
+     * @throws org.sweetie.aichat.exception.DeadlineExceededException if no provider answers before the deadline
+     */
+    public CompletionResult execute(LLMType primary, Deadline deadline, Function<LLMType, CompletionResult> call) {
+
+        LLMType alternate = properties.alternates().get(primary);
+        boolean hedged = properties.enabled() && alternate != null && alternate != primary
+                && chatClients.isEnabled(alternate);
+
+        ExecutorCompletionService<CompletionResult> completion = new ExecutorCompletionService<>(executor);
+        List<Future<CompletionResult>> pending = new ArrayList<>(2);
+
+        try {
+            pending.add(completion.submit(() -> call.apply(primary)));
+
+            Future<CompletionResult> hedge = null;
+            long hedgeDelayNanos = hedged ? hedgeDelayNanos(primary) : Long.MAX_VALUE;
+            // A hedge that could only fire after the deadline is not worth waiting for
+            if (hedgeDelayNanos < deadline.remainingNanos()) {
+                Future<CompletionResult> done = completion.poll(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+                if (done != null) {
+                    return result(done);
+                }
+
+                log.info("Primary LLM {} is slow, hedging to {}", primary, alternate);
+                meterRegistry.counter("chat.hedge.fired", "llm", primary.getValue()).increment();
+                hedge = completion.submit(() -> call.apply(alternate));
+                pending.add(hedge);
+            }
+
+            RuntimeException failure = null;
+            for (int remaining = pending.size(); remaining > 0; remaining--) {
+                Future<CompletionResult> next = completion.poll(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    log.warn("LLM {} did not answer within the {} ms deadline", primary, deadline.budget().toMillis());
+                    throw deadline.exceeded();
+                }
+                try {
+                    CompletionResult result = result(next);
+                    if (next == hedge) {
+                        meterRegistry.counter("chat.hedge.won", "llm", alternate.getValue()).increment();
+                    }
+                    return result;
+                } catch (RuntimeException ex) {
+                    failure = ex;
+                }
+            }
+            throw failure;
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AIServiceException("REQUEST_CANCELLED", "Request was cancelled", ex);
+        } finally {
+            // Interrupts the losing call, or every call when the caller gives up, so its HTTP request is abandoned.
+            // Calls interrupted once the deadline has passed count as provider failures, the others do not
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Delay before hedging: the primary's observed p95 when trusted, otherwise the fixed delay.
+     */
+    private long hedgeDelayNanos(LLMType primary) {
+        if (properties.adaptiveDelay()) {
+            ProviderLatencyTracker.Snapshot snapshot = latencyTracker.snapshot(primary);
+            if (snapshot.samples() >= properties.minSamples() && snapshot.p95Millis() > 0) {
+                return (long) (snapshot.p95Millis() * 1_000_000);
+            }
+        }
+        return properties.delay().toNanos();
+    }
+
+    /**
+     * Unwraps a completed call, rethrowing its failure unchanged.
+     */
+    private static CompletionResult result(Future<CompletionResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new AIServiceException("AI service is unavailable", ex.getCause());
+        }
+    }
+}
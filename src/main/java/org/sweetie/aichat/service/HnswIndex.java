@@ -0,0 +1,271 @@
+package org.sweetie.aichat.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+
+/**
+ * In-process approximate nearest neighbour index over unit vectors, using a Hierarchical
+ * Navigable Small World graph (Malkov &amp; Yashunin). Similarity is the dot product, i.e.
+ * cosine similarity for the normalized vectors callers must supply.
+ *
+ * <p>Elements cannot be removed; callers rebuild the index to drop entries. Not thread-safe;
+ * callers serialize inserts against searches.</p>
+ *
+ * @param <T> value stored with each vector
+ */
+final class HnswIndex<T> {
+
+    /**
+     * A search result.
+     *
+     * @param value the stored value
+     * @param similarity cosine similarity to the query
+     */
+    record Match<T>(T value, double similarity) { }
+
+    private record Scored(int node, double similarity) { }
+
+    private static final Comparator<Scored> BY_SIMILARITY = Comparator.comparingDouble(Scored::similarity);
+
+    private final int dimensions;
+    private final int maxConnections;
+    private final int maxConnectionsLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+
+    private final List<float[]> vectors = new ArrayList<>();
+    private final List<T> values = new ArrayList<>();
+    // links.get(node)[layer] holds the node's neighbours on that layer
+    private final List<int[][]> links = new ArrayList<>();
+    private final List<int[]> linkCounts = new ArrayList<>();
+
+    private int entryPoint = -1;
+    private int topLayer = -1;
+
+    /**
+     * @param dimensions vector length
+     * @param maxConnections neighbours per node on upper layers (M); layer 0 keeps twice as many
+     * @param efConstruction candidate list size while inserting
+     */
+    HnswIndex(int dimensions, int maxConnections, int efConstruction) {
+        this.dimensions = dimensions;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsLayer0 = 2 * maxConnections;
+        this.efConstruction = Math.max(efConstruction, maxConnections);
+        this.levelMultiplier = 1 / Math.log(maxConnections);
+    }
+
+    int size() {
+        return vectors.size();
+    }
+
+    /**
+     * @param vector unit vector of the configured dimensions
+     * @param value value returned when the vector is found
+     */
+    void add(float[] vector, T value) {
+
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+
+        int node = vectors.size();
+        int layer = (int) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * levelMultiplier);
+        vectors.add(vector);
+        values.add(value);
+        int[][] nodeLinks = new int[layer + 1][];
+        for (int l = 0; l <= layer; l++) {
+            nodeLinks[l] = new int[capacity(l) + 1];
+        }
+        links.add(nodeLinks);
+        linkCounts.add(new int[layer + 1]);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLayer = layer;
+            return;
+        }
+
+        int nearest = entryPoint;
+        for (int l = topLayer; l > layer; l--) {
+            nearest = greedyClosest(vector, nearest, l);
+        }
+
+        for (int l = Math.min(layer, topLayer); l >= 0; l--) {
+            List<Scored> candidates = searchLayer(vector, nearest, efConstruction, l);
+            int connections = Math.min(maxConnections, candidates.size());
+            for (int i = 0; i < connections; i++) {
+                int neighbour = candidates.get(i).node();
+                connect(node, neighbour, l);
+                connect(neighbour, node, l);
+            }
+            nearest = candidates.getFirst().node();
+        }
+
+        if (layer > topLayer) {
+            topLayer = layer;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * @param query unit vector of the configured dimensions
+     * @param k matches to return
+     * @param ef candidate list size; larger is slower and more accurate
+     * @return up to k approximate nearest neighbours, most similar first
+     */
+    List<Match<T>> search(float[] query, int k, int ef) {
+
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        int nearest = entryPoint;
+        for (int l = topLayer; l > 0; l--) {
+            nearest = greedyClosest(query, nearest, l);
+        }
+        List<Scored> found = searchLayer(query, nearest, Math.max(ef, k), 0);
+        return found.subList(0, Math.min(k, found.size())).stream()
+                .map(scored -> new Match<>(values.get(scored.node()), scored.similarity()))
+                .toList();
+    }
+
+    /**
+     * Brute-force search, used to sample the recall of {@link #search}.
+     *
+     * @param query unit vector of the configured dimensions
+     * @return the exact nearest neighbour, or null if the index is empty
+     */
+    Match<T> exactNearest(float[] query) {
+
+        int best = -1;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int node = 0; node < vectors.size(); node++) {
+            double similarity = similarity(query, node);
+            if (similarity > bestSimilarity) {
+                best = node;
+                bestSimilarity = similarity;
+            }
+        }
+        return best < 0 ? null : new Match<>(values.get(best), bestSimilarity);
+    }
+
+    /**
+     * @param action receives every stored vector and value, in insertion order
+     */
+    void forEach(BiConsumer<float[], T> action) {
+        for (int node = 0; node < vectors.size(); node++) {
+            action.accept(vectors.get(node), values.get(node));
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int layer) {
+
+        int current = start;
+        double currentSimilarity = similarity(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links.get(current)[layer];
+            int count = linkCounts.get(current)[layer];
+            for (int i = 0; i < count; i++) {
+                double similarity = similarity(query, neighbours[i]);
+                if (similarity > currentSimilarity) {
+                    current = neighbours[i];
+                    currentSimilarity = similarity;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer.
+     *
+     * @return up to ef nodes, most similar first
+     */
+    private List<Scored> searchLayer(float[] query, int start, int ef, int layer) {
+
+        BitSet visited = new BitSet(vectors.size());
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(BY_SIMILARITY.reversed());
+        PriorityQueue<Scored> results = new PriorityQueue<>(BY_SIMILARITY);
+
+        Scored first = new Scored(start, similarity(query, start));
+        visited.set(start);
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Scored candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity() < results.peek().similarity()) {
+                break;
+            }
+            int[] neighbours = links.get(candidate.node())[layer];
+            int count = linkCounts.get(candidate.node())[layer];
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                double similarity = similarity(query, neighbour);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Scored scored = new Scored(neighbour, similarity);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Scored> sorted = new ArrayList<>(results);
+        sorted.sort(BY_SIMILARITY.reversed());
+        return sorted;
+    }
+
+    /**
+     * Adds a directed link, keeping only the most similar neighbours once the node is full.
+     */
+    private void connect(int from, int to, int layer) {
+
+        int[] neighbours = links.get(from)[layer];
+        int[] counts = linkCounts.get(from);
+        neighbours[counts[layer]++] = to;
+
+        int capacity = capacity(layer);
+        if (counts[layer] > capacity) {
+            float[] origin = vectors.get(from);
+            Integer[] ranked = new Integer[counts[layer]];
+            for (int i = 0; i < ranked.length; i++) {
+                ranked[i] = neighbours[i];
+            }
+            Arrays.sort(ranked, Comparator.comparingDouble((Integer node) -> similarity(origin, node)).reversed());
+            for (int i = 0; i < capacity; i++) {
+                neighbours[i] = ranked[i];
+            }
+            counts[layer] = capacity;
+        }
+    }
+
+    private int capacity(int layer) {
+        return layer == 0 ? maxConnectionsLayer0 : maxConnections;
+    }
+
+    private double similarity(float[] query, int node) {
+
+        float[] vector = vectors.get(node);
+        double dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += query[i] * vector[i];
+        }
+        return dot;
+    }
+}
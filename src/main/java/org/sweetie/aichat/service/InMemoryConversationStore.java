@@ -0,0 +1,78 @@
+package org.sweetie.aichat.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.sweetie.aichat.model.ConversationTurn;
+import org.sweetie.aichat.webconfig.SessionProperties;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * On-heap conversation store backed by Caffeine: sessions expire after the idle timeout
+ * and the least valuable are evicted once {@code max-sessions} is reached. Statistics are
+ * published to Micrometer under {@code cache.*{cache=chat.sessions}}.
+ */
+public class InMemoryConversationStore implements ConversationStore {
+
+    private final Cache<String, Conversation> sessions;
+
+    /**
+     * @param properties session bounds and idle timeout
+     * @param meterRegistry registry receiving session cache metrics
+     */
+    public InMemoryConversationStore(SessionProperties properties, MeterRegistry meterRegistry) {
+
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(properties.maxSessions())
+                .expireAfterAccess(properties.idleTimeout())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, "chat.sessions");
+    }
+
+    @Override
+    public List<ConversationTurn> history(String sessionId) {
+        Conversation conversation = sessions.getIfPresent(sessionId);
+        return conversation == null ? List.of() : conversation.turns();
+    }
+
+    @Override
+    public void append(String sessionId, ConversationTurn turn, int maxHistoryTokens) {
+        sessions.get(sessionId, id -> new Conversation()).append(turn, maxHistoryTokens);
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        sessions.invalidate(sessionId);
+    }
+
+    @Override
+    public long sessionCount() {
+        return sessions.estimatedSize();
+    }
+
+    /**
+     * Turns of one session; concurrent requests on the same session append in completion order.
+     */
+    private static final class Conversation {
+
+        private final ArrayDeque<ConversationTurn> turns = new ArrayDeque<>();
+        private long tokens;
+
+        synchronized void append(ConversationTurn turn, int maxHistoryTokens) {
+            turns.addLast(turn);
+            tokens += turn.tokens();
+            while (tokens > maxHistoryTokens && !turns.isEmpty()) {
+                tokens -= turns.removeFirst().tokens();
+            }
+        }
+
+        synchronized List<ConversationTurn> turns() {
+            return List.copyOf(turns);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sweetie.aichat.model.ConversationTurn;
+import org.sweetie.aichat.webconfig.SessionProperties;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conversation store that keeps transcripts outside the Java heap, so hundreds of thousands
+ * of sessions add nothing for the garbage collector to trace or copy.
+ *
+ * <p>Each session's turns are encoded as UTF-8 into one block of a {@link MemorySegment}
+ * managed by a {@link SlabAllocator}:
+ * {@code [int tokens][int userLength][int assistantLength][user bytes][assistant bytes]} per turn,
+ * oldest first. Appending copies the surviving turns' bytes into a new block without decoding
+ * them. Only a small index entry per session stays on heap. When memory runs out, the least
+ * recently used sessions are evicted until the new block fits; sessions idle past the timeout
+ * are evicted as they reach the head of the LRU order.</p>
+ *
+ * <p>Metrics: {@code chat.sessions.offheap.used} (bytes in allocated blocks),
+ * {@code chat.sessions.offheap.sessions} and {@code chat.sessions.offheap.evictions}.</p>
+ */
+public class OffHeapConversationStore implements ConversationStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapConversationStore.class);
+
+    private static final int TURN_HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int MIN_BLOCK_BYTES = 256;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED;
+
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment memory;
+    private final SlabAllocator allocator;
+    private final int pageSize;
+    private final long maxSessions;
+    private final long idleTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Access-ordered: iteration starts at the least recently used session
+    private final LinkedHashMap<String, Block> index = new LinkedHashMap<>(1024, 0.75f, true);
+    private long usedBytes;
+
+    private final Counter evictions;
+
+    /**
+     * @param properties off-heap capacity and page size, session bounds and idle timeout
+     * @param meterRegistry registry receiving store metrics
+     */
+    public OffHeapConversationStore(SessionProperties properties, MeterRegistry meterRegistry) {
+
+        this.pageSize = (int) properties.offHeapPageSize().toBytes();
+        this.allocator = new SlabAllocator(properties.offHeapCapacity().toBytes(), pageSize, MIN_BLOCK_BYTES);
+        this.memory = arena.allocate(allocator.capacity(), Long.BYTES);
+        this.maxSessions = properties.maxSessions();
+        this.idleTimeoutNanos = properties.idleTimeout().toNanos();
+
+        Gauge.builder("chat.sessions.offheap.used", this, store -> store.usedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("chat.sessions.offheap.sessions", this, OffHeapConversationStore::sessionCount)
+                .register(meterRegistry);
+        this.evictions = meterRegistry.counter("chat.sessions.offheap.evictions");
+
+        log.info("Off-heap conversation store: {} MB in {} KB pages",
+                allocator.capacity() >> 20, pageSize >> 10);
+    }
+
+    @Override
+    public List<ConversationTurn> history(String sessionId) {
+
+        byte[] bytes;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            expireIdle(now);
+            Block block = index.get(sessionId);
+            if (block == null) {
+                return List.of();
+            }
+            block.lastAccessNanos = now;
+            bytes = memory.asSlice(block.offset, block.length).toArray(ValueLayout.JAVA_BYTE);
+        } finally {
+            lock.unlock();
+        }
+        return decode(bytes);
+    }
+
+    @Override
+    public void append(String sessionId, ConversationTurn turn, int maxHistoryTokens) {
+
+        byte[] user = turn.userMessage().getBytes(StandardCharsets.UTF_8);
+        byte[] assistant = turn.assistantMessage().getBytes(StandardCharsets.UTF_8);
+        int turnBytes = TURN_HEADER_BYTES + user.length + assistant.length;
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            expireIdle(now);
+            Block previous = index.remove(sessionId);
+
+            // Drop the oldest turns until the history fits the token budget again
+            long keepFrom = 0;
+            int tokens = turn.tokens();
+            if (previous != null) {
+                tokens += previous.tokens;
+                while (tokens > maxHistoryTokens && keepFrom < previous.length) {
+                    long at = previous.offset + keepFrom;
+                    tokens -= memory.get(INT, at);
+                    keepFrom += TURN_HEADER_BYTES + memory.get(INT, at + 4) + memory.get(INT, at + 8);
+                }
+            }
+            int kept = previous == null ? 0 : (int) (previous.length - keepFrom);
+
+            if (tokens > maxHistoryTokens) {
+                // The new turn alone exceeds the budget, so nothing is kept
+                release(previous);
+                return;
+            }
+
+            long offset = allocate(kept + turnBytes);
+            if (offset < 0) {
+                log.warn("Conversation of {} bytes does not fit the off-heap store, dropping it", kept + turnBytes);
+                release(previous);
+                return;
+            }
+
+            if (kept > 0) {
+                MemorySegment.copy(memory, previous.offset + keepFrom, memory, offset, kept);
+            }
+            long at = offset + kept;
+            memory.set(INT, at, turn.tokens());
+            memory.set(INT, at + 4, user.length);
+            memory.set(INT, at + 8, assistant.length);
+            MemorySegment.copy(user, 0, memory, ValueLayout.JAVA_BYTE, at + TURN_HEADER_BYTES, user.length);
+            MemorySegment.copy(assistant, 0, memory, ValueLayout.JAVA_BYTE,
+                    at + TURN_HEADER_BYTES + user.length, assistant.length);
+            release(previous);
+
+            Block block = new Block(offset, kept + turnBytes, allocator.blockSize(kept + turnBytes), tokens);
+            block.lastAccessNanos = now;
+            index.put(sessionId, block);
+            usedBytes += block.blockSize;
+
+            while (index.size() > maxSessions) {
+                evictEldest();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(String sessionId) {
+
+        lock.lock();
+        try {
+            release(index.remove(sessionId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long sessionCount() {
+
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the off-heap memory; the store must not be used afterwards.
+     */
+    @Override
+    public void close() {
+
+        lock.lock();
+        try {
+            index.clear();
+            usedBytes = 0;
+            arena.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Allocates a block, evicting least recently used sessions until one is free.
+     *
+     * @return offset of the block, or -1 if the size exceeds a page
+     */
+    private long allocate(int size) {
+
+        if (size > pageSize) {
+            return -1;
+        }
+        long offset = allocator.allocate(size);
+        while (offset < 0 && !index.isEmpty()) {
+            evictEldest();
+            offset = allocator.allocate(size);
+        }
+        return offset;
+    }
+
+    private void expireIdle(long now) {
+
+        Iterator<Map.Entry<String, Block>> eldest = index.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Block block = eldest.next().getValue();
+            if (now - block.lastAccessNanos < idleTimeoutNanos) {
+                return;
+            }
+            eldest.remove();
+            release(block);
+        }
+    }
+
+    private void evictEldest() {
+
+        Iterator<Map.Entry<String, Block>> eldest = index.entrySet().iterator();
+        Block block = eldest.next().getValue();
+        eldest.remove();
+        release(block);
+        evictions.increment();
+    }
+
+    private void release(Block block) {
+
+        if (block != null) {
+            allocator.free(block.offset);
+            usedBytes -= block.blockSize;
+        }
+    }
+
+    private static List<ConversationTurn> decode(byte[] bytes) {
+
+        MemorySegment segment = MemorySegment.ofArray(bytes);
+        List<ConversationTurn> turns = new ArrayList<>();
+        int at = 0;
+        while (at < bytes.length) {
+            int tokens = segment.get(INT, at);
+            int userLength = segment.get(INT, at + 4);
+            int assistantLength = segment.get(INT, at + 8);
+            int userStart = at + TURN_HEADER_BYTES;
+            turns.add(new ConversationTurn(
+                    new String(bytes, userStart, userLength, StandardCharsets.UTF_8),
+                    new String(bytes, userStart + userLength, assistantLength, StandardCharsets.UTF_8),
+                    tokens));
+            at = userStart + userLength + assistantLength;
+        }
+        return turns;
+    }
+
+    /**
+     * On-heap index entry of one session.
+     */
+    private static final class Block {
+
+        final long offset;
+        final int length;
+        final int blockSize;
+        final int tokens;
+        long lastAccessNanos;
+
+        Block(long offset, int length, int blockSize, int tokens) {
+            this.offset = offset;
+            this.length = length;
+            this.blockSize = blockSize;
+            this.tokens = tokens;
+        }
+    }
+}
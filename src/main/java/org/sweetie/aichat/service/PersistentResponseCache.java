@@ -0,0 +1,423 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.ResponseCacheProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk tier of the response cache, so a restarted instance serves repeated prompts
+ * without calling a provider.
+ *
+ * <p>Entries are appended to memory-mapped segment files. Each record is
+ * {@code [int length][int crc][long writtenAt][long hashHi][long hashLo][int promptTokens]
+ * [int completionTokens][int llmType][int keyLength][int contentLength][key][content]},
+ * where the hash is the first 128 bits of SHA-256 over prompt, provider and model. The length
+ * is written last, so a record torn by a crash reads as the end of its segment, and the CRC
+ * catches partially flushed pages. On startup the segments are scanned in order to rebuild
+ * the in-memory index; later records for the same key win.</p>
+ *
+ * <p>When the active segment is full a new one is started; once more than
+ * {@code max-segments} exist, the live entries of the oldest are copied forward and its file
+ * is deleted. Disabled by default.</p>
+ */
+@Component
+public class PersistentResponseCache implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentResponseCache.class);
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int FIXED_BYTES = HEADER_BYTES + 3 * Long.BYTES + 5 * Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private record Hash(long hi, long lo) { }
+
+    private record Location(Segment segment, long offset, long writtenAtMillis) { }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxSegments;
+    private final long ttlMillis;
+
+    private final Map<Hash, Location> index = new ConcurrentHashMap<>();
+    // Segments by id, oldest first; the last one takes new writes
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    // Readers hold the read lock so a segment is never unmapped under them
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Counter hits;
+    private Counter misses;
+
+    /**
+     * Opens the segment directory and rebuilds the index from it, if enabled.
+     *
+     * @param properties persistent tier settings
+     * @param meterRegistry registry receiving hit/miss metrics
+     */
+    public PersistentResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+
+        ResponseCacheProperties.Persistent persistent = properties.persistent();
+        this.enabled = properties.enabled() && persistent.enabled();
+        this.directory = persistent.directory();
+        this.segmentSize = persistent.segmentSize().toBytes();
+        this.maxSegments = Math.max(2, persistent.maxSegments());
+        this.ttlMillis = persistent.ttl().toMillis();
+
+        if (!enabled) {
+            return;
+        }
+
+        hits = meterRegistry.counter("chat.cache.persistent", "result", "hit");
+        misses = meterRegistry.counter("chat.cache.persistent", "result", "miss");
+        Gauge.builder("chat.cache.persistent.entries", index, Map::size).register(meterRegistry);
+        Gauge.builder("chat.cache.persistent.segments", this, PersistentResponseCache::segmentCount).register(meterRegistry);
+
+        recover();
+    }
+
+    /**
+     * @param key the request key
+     * @return the persisted result, if present and not expired
+     */
+    public Optional<CompletionResult> get(ResponseCache.Key key) {
+
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        byte[] keyBytes = keyBytes(key);
+        Hash hash = hash(keyBytes);
+        lock.readLock().lock();
+        try {
+            Location location = index.get(hash);
+            if (location == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            if (System.currentTimeMillis() - location.writtenAtMillis() > ttlMillis) {
+                index.remove(hash, location);
+                misses.increment();
+                return Optional.empty();
+            }
+            Optional<CompletionResult> result = location.segment().read(location.offset(), keyBytes);
+            (result.isPresent() ? hits : misses).increment();
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a response; a later write for the same key replaces the earlier one.
+     *
+     * @param key the request key
+     * @param response the upstream result
+     */
+    public void put(ResponseCache.Key key, CompletionResult response) {
+
+        if (!enabled || response.content() == null) {
+            return;
+        }
+
+        byte[] keyBytes = keyBytes(key);
+        byte[] content = response.content().getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_BYTES + keyBytes.length + content.length;
+        if (length > segmentSize) {
+            return;
+        }
+
+        Hash hash = hash(keyBytes);
+        lock.writeLock().lock();
+        try {
+            append(hash, System.currentTimeMillis(), response.promptTokens(), response.completionTokens(),
+                    response.llmType(), keyBytes, content, true);
+        } catch (IOException ex) {
+            log.warn("Failed to persist cached response", ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes and unmaps all segments.
+     */
+    @Override
+    public void close() {
+
+        lock.writeLock().lock();
+        try {
+            segments.values().forEach(Segment::close);
+            segments.clear();
+            index.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int segmentCount() {
+
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes one record to the active segment, rolling to a new segment when it is full.
+     */
+    private void append(Hash hash, long writtenAtMillis, int promptTokens, int completionTokens,
+                        LLMType llmType, byte[] keyBytes, byte[] content, boolean compact) throws IOException {
+
+        int length = FIXED_BYTES + keyBytes.length + content.length;
+        Segment active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (active == null || active.position + length > segmentSize) {
+            active = roll(compact);
+        }
+
+        long offset = active.position;
+        MemorySegment memory = active.memory;
+        memory.set(LONG, offset + HEADER_BYTES, writtenAtMillis);
+        memory.set(LONG, offset + HEADER_BYTES + 8, hash.hi());
+        memory.set(LONG, offset + HEADER_BYTES + 16, hash.lo());
+        memory.set(INT, offset + HEADER_BYTES + 24, promptTokens);
+        memory.set(INT, offset + HEADER_BYTES + 28, completionTokens);
+        memory.set(INT, offset + HEADER_BYTES + 32, llmType.ordinal());
+        memory.set(INT, offset + HEADER_BYTES + 36, keyBytes.length);
+        memory.set(INT, offset + HEADER_BYTES + 40, content.length);
+        MemorySegment.copy(keyBytes, 0, memory, ValueLayout.JAVA_BYTE, offset + FIXED_BYTES, keyBytes.length);
+        MemorySegment.copy(content, 0, memory, ValueLayout.JAVA_BYTE,
+                offset + FIXED_BYTES + keyBytes.length, content.length);
+        memory.set(INT, offset + 4, crc(memory, offset, length));
+        // Committing the length last makes the record visible to recovery
+        memory.set(INT, offset, length);
+
+        active.position += length;
+        index.put(hash, new Location(active, offset, writtenAtMillis));
+    }
+
+    /**
+     * Starts a new segment, compacting the oldest one away if there are too many.
+     */
+    private Segment roll(boolean compact) throws IOException {
+
+        if (!segments.isEmpty()) {
+            segments.lastEntry().getValue().force();
+        }
+        long id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Segment segment = Segment.open(directory.resolve(SEGMENT_PREFIX + "%010d".formatted(id) + SEGMENT_SUFFIX),
+                segmentSize);
+        segments.put(id, segment);
+
+        if (compact && segments.size() > maxSegments) {
+            compactOldest();
+        }
+        return segments.lastEntry().getValue();
+    }
+
+    /**
+     * Copies the live, unexpired entries of the oldest segment forward and deletes it.
+     */
+    private void compactOldest() throws IOException {
+
+        Map.Entry<Long, Segment> oldest = segments.pollFirstEntry();
+        Segment segment = oldest.getValue();
+        long now = System.currentTimeMillis();
+        int copied = 0;
+
+        for (long offset = 0; offset < segment.position; offset += segment.memory.get(INT, offset)) {
+            long hi = segment.memory.get(LONG, offset + HEADER_BYTES + 8);
+            long lo = segment.memory.get(LONG, offset + HEADER_BYTES + 16);
+            Hash hash = new Hash(hi, lo);
+            Location location = index.get(hash);
+            if (location == null || location.segment() != segment || location.offset() != offset) {
+                continue;
+            }
+            index.remove(hash);
+            if (now - location.writtenAtMillis() > ttlMillis) {
+                continue;
+            }
+            Record record = segment.record(offset);
+            append(hash, location.writtenAtMillis(), record.promptTokens(), record.completionTokens(),
+                    record.llmType(), record.key(), record.content(), false);
+            copied++;
+        }
+
+        segment.close();
+        Files.deleteIfExists(segment.path);
+        log.info("Compacted response cache segment {}, {} live entries carried forward", segment.path, copied);
+    }
+
+    /**
+     * Rebuilds the index from the segment files, stopping at the first torn or corrupt record.
+     */
+    private void recover() {
+
+        try {
+            Files.createDirectories(directory);
+            List<Path> paths;
+            try (Stream<Path> files = Files.list(directory)) {
+                paths = files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .sorted()
+                        .toList();
+            }
+
+            long now = System.currentTimeMillis();
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                Segment segment = Segment.open(path, segmentSize);
+                segments.put(id, segment);
+
+                long offset = 0;
+                while (offset + FIXED_BYTES <= segmentSize) {
+                    int length = segment.memory.get(INT, offset);
+                    if (length < FIXED_BYTES || offset + length > segmentSize
+                            || segment.memory.get(INT, offset + 4) != crc(segment.memory, offset, length)) {
+                        break;
+                    }
+                    long writtenAt = segment.memory.get(LONG, offset + HEADER_BYTES);
+                    Hash hash = new Hash(
+                            segment.memory.get(LONG, offset + HEADER_BYTES + 8),
+                            segment.memory.get(LONG, offset + HEADER_BYTES + 16));
+                    if (now - writtenAt <= ttlMillis) {
+                        index.put(hash, new Location(segment, offset, writtenAt));
+                    } else {
+                        index.remove(hash);
+                    }
+                    offset += length;
+                }
+                segment.position = offset;
+                // Clear a torn tail so a later record written here is not mistaken for it
+                if (offset + Integer.BYTES <= segmentSize) {
+                    segment.memory.set(INT, offset, 0);
+                }
+            }
+            log.info("Persistent response cache recovered {} entries from {} segments in {}",
+                    index.size(), segments.size(), directory.toAbsolutePath());
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open persistent response cache in " + directory, ex);
+        }
+    }
+
+    private static byte[] keyBytes(ResponseCache.Key key) {
+        return (key.message() + '\0' + key.llmType().name() + '\0' + key.model()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Hash hash(byte[] keyBytes) {
+
+        try {
+            ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(keyBytes));
+            return new Hash(digest.getLong(), digest.getLong());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static int crc(MemorySegment memory, long offset, int length) {
+        // Checksums refuse buffers of shared arenas, so the record is copied to the heap first
+        CRC32C crc = new CRC32C();
+        crc.update(memory.asSlice(offset + HEADER_BYTES, length - HEADER_BYTES).toArray(ValueLayout.JAVA_BYTE));
+        return (int) crc.getValue();
+    }
+
+    private record Record(int promptTokens, int completionTokens, LLMType llmType, byte[] key, byte[] content) { }
+
+    /**
+     * One memory-mapped segment file.
+     */
+    private static final class Segment {
+
+        final Path path;
+        final Arena arena;
+        final MemorySegment memory;
+        long position;
+
+        private Segment(Path path, Arena arena, MemorySegment memory) {
+            this.path = path;
+            this.arena = arena;
+            this.memory = memory;
+        }
+
+        static Segment open(Path path, long size) throws IOException {
+
+            Arena arena = Arena.ofShared();
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(path, arena, channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena));
+            } catch (IOException | RuntimeException ex) {
+                arena.close();
+                throw ex;
+            }
+        }
+
+        Record record(long offset) {
+
+            int keyLength = memory.get(INT, offset + HEADER_BYTES + 36);
+            int contentLength = memory.get(INT, offset + HEADER_BYTES + 40);
+            long keyStart = offset + FIXED_BYTES;
+            return new Record(
+                    memory.get(INT, offset + HEADER_BYTES + 24),
+                    memory.get(INT, offset + HEADER_BYTES + 28),
+                    LLMType.values()[memory.get(INT, offset + HEADER_BYTES + 32)],
+                    memory.asSlice(keyStart, keyLength).toArray(ValueLayout.JAVA_BYTE),
+                    memory.asSlice(keyStart + keyLength, contentLength).toArray(ValueLayout.JAVA_BYTE));
+        }
+
+        /**
+         * @return the stored result, unless the stored key differs (a hash collision)
+         */
+        Optional<CompletionResult> read(long offset, byte[] expectedKey) {
+
+            Record record = record(offset);
+            if (!Arrays.equals(record.key(), expectedKey)) {
+                return Optional.empty();
+            }
+            return Optional.of(new CompletionResult(
+                    new String(record.content(), StandardCharsets.UTF_8),
+                    record.llmType(), record.promptTokens(), record.completionTokens()));
+        }
+
+        void force() {
+            memory.force();
+        }
+
+        void close() {
+            force();
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.sweetie.aichat.service;
+
+/**
+ * Turns a prompt into a unit-length embedding vector for the semantic cache.
+ */
+public interface PromptEmbedder {
+
+    /**
+     * @param text the prompt
+     * @return embedding normalized to unit length
+     */
+    float[] embed(String text);
+
+    /**
+     * @return length of the vectors returned by {@link #embed(String)}
+     */
+    int dimensions();
+
+    /**
+     * Scales a vector to unit length in place.
+     *
+     * @param vector the vector
+     * @return the same vector
+     */
+    static float[] normalize(float[] vector) {
+
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+}
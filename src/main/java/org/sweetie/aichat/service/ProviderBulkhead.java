@@ -0,0 +1,211 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.exception.AIServiceException;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.model.Priority;
+import org.sweetie.aichat.webconfig.AdmissionProperties;
+import org.sweetie.aichat.webconfig.BulkheadProperties;
+import org.sweetie.aichat.webconfig.ConcurrencyLimitProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bulkhead isolating each AI provider's in-flight calls, so a slow provider can only
+ * exhaust its own slots and never starves the others.
+ *
+ * <p>Requests arriving while a provider is full queue for its next free slot. Slots go
+ * to interactive before standard before batch requests, and are shared fairly, by
+ * weight, between the tenants of a class (see {@link AdmissionQueue}). Queue depth is
+ * published as {@code chat.admission.queue.depth}, time spent waiting as
+ * {@code chat.admission.wait} and turned-away requests as
+ * {@code chat.admission.rejected}, all tagged by provider and priority.</p>
+ *
+ * <p>With {@code chat.concurrency-limit.enabled} the number of slots is not fixed: it
+ * adapts to each provider's latency and overload errors (see {@link AdaptiveConcurrencyLimit}),
+ * up to the configured bulkhead limit, and is published as {@code chat.concurrency.limit}.
+ * The queue is then bounded in proportion to the current limit, and requests beyond it
+ * are shed at once with {@code OVERLOADED} instead of waiting on a provider that is
+ * already falling behind. Shedding starts with the lowest class: an arrival displaces a
+ * lower-class waiter before it is refused itself, and when the limit shrinks the excess
+ * waiters are shed from batch first.</p>
+ */
+@Component
+public class ProviderBulkhead {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderBulkhead.class);
+
+    // Shorter answers are dominated by per-call overhead, not per-token speed
+    private static final int MIN_SAMPLED_COMPLETION_TOKENS = 16;
+
+    private final Map<LLMType, AdmissionQueue> queues = new EnumMap<>(LLMType.class);
+    private final Map<LLMType, AdaptiveConcurrencyLimit> limits = new EnumMap<>(LLMType.class);
+    private final long acquireTimeoutNanos;
+    private final AdmissionProperties admissionProperties;
+    private final ConcurrencyLimitProperties limitProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates one admission queue per provider sized from configuration.
+     *
+     * @param properties bulkhead limits and acquire timeout
+     * @param admission queue depth and tenant weights
+     * @param limitProperties adaptive limit settings
+     * @param meterRegistry registry receiving queue metrics
+     */
+    public ProviderBulkhead(BulkheadProperties properties, AdmissionProperties admission,
+                            ConcurrencyLimitProperties limitProperties, MeterRegistry meterRegistry) {
+        this.admissionProperties = admission;
+        this.limitProperties = limitProperties;
+        for (LLMType llmType : LLMType.values()) {
+            int slots = properties.maxConcurrentFor(llmType);
+            AdmissionQueue queue = new AdmissionQueue(slots, admission.maxQueueDepth());
+            if (limitProperties.enabled()) {
+                AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(limitProperties, slots);
+                queue.resize(limit.limit(), maxQueuedFor(limit.limit()));
+                limits.put(llmType, limit);
+                Gauge.builder("chat.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                        .tag("llm", llmType.getValue())
+                        .register(meterRegistry);
+            }
+            queues.put(llmType, queue);
+            for (Priority priority : Priority.values()) {
+                Gauge.builder("chat.admission.queue.depth", queue, q -> q.queued(priority))
+                        .tags("llm", llmType.getValue(), "priority", priority.getValue())
+                        .register(meterRegistry);
+            }
+        }
+        this.acquireTimeoutNanos = properties.acquireTimeout().toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Waits up to the configured timeout, or until the request's deadline if sooner,
+     * for a free slot on the provider.
+     *
+     * @param llmType the AI provider type
+     * @param deadline the request's deadline
+     * @param admission the request's priority and tenant, deciding its place in line
+     * @throws AIServiceException if no slot frees up in time, the queue is full or the request is shed
+     * @throws org.sweetie.aichat.exception.DeadlineExceededException if the deadline passes first
+     */
+    public void acquire(LLMType llmType, Deadline deadline, Admission admission) {
+
+        long waitNanos = Math.min(acquireTimeoutNanos, deadline.remainingNanos());
+        String priority = admission.priority().getValue();
+        long start = System.nanoTime();
+
+        AdmissionQueue.Outcome outcome;
+        try {
+            outcome = queues.get(llmType).acquire(admission.priority(), admission.tenant(),
+                    admissionProperties.weightFor(admission.tenant()), waitNanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AIServiceException("REQUEST_CANCELLED", "Request was cancelled", ex);
+        }
+
+        switch (outcome) {
+            case GRANTED -> Timer.builder("chat.admission.wait")
+                    .tags("llm", llmType.getValue(), "priority", priority)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            case TIMED_OUT -> {
+                if (waitNanos < acquireTimeoutNanos) {
+                    rejected(llmType, priority, "deadline");
+                    throw deadline.exceeded();
+                }
+                rejected(llmType, priority, "timeout");
+                log.warn("Bulkhead full for LLM {}", llmType);
+                throw new AIServiceException("PROVIDER_BUSY", "Too many concurrent requests to " + llmType.getValue());
+            }
+            case QUEUE_FULL -> {
+                if (limits.containsKey(llmType)) {
+                    rejected(llmType, priority, "overloaded");
+                    log.warn("Shedding request to overloaded LLM {}", llmType);
+                    throw new AIServiceException("OVERLOADED", llmType.getValue() + " is overloaded, try again later");
+                }
+                rejected(llmType, priority, "queue_full");
+                log.warn("Admission queue full for LLM {}", llmType);
+                throw new AIServiceException("PROVIDER_BUSY", "Too many requests waiting for " + llmType.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns a slot previously obtained with {@link #acquire(LLMType, Deadline, Admission)},
+     * handing it to the highest-priority waiter if any.
+     *
+     * @param llmType the AI provider type
+     */
+    public void release(LLMType llmType) {
+        queues.get(llmType).release();
+    }
+
+    /**
+     * Feeds a completed blocking call to the provider's adaptive limit, as latency per
+     * completion token. Answers too short for their fixed overhead to average out are
+     * not sampled. Must be called before the call's slot is released.
+     *
+     * @param llmType the AI provider type
+     * @param latencyNanos the call's latency
+     * @param completionTokens completion tokens of the answer
+     */
+    public void onCallCompleted(LLMType llmType, long latencyNanos, int completionTokens) {
+        if (completionTokens >= MIN_SAMPLED_COMPLETION_TOKENS) {
+            update(llmType, limit -> limit.onSuccess(AdaptiveConcurrencyLimit.Signal.LATENCY_PER_TOKEN,
+                    latencyNanos / completionTokens, queues.get(llmType).inFlight()));
+        }
+    }
+
+    /**
+     * Feeds a completed stream to the provider's adaptive limit, as time to first token.
+     * Must be called before the stream's slot is released.
+     *
+     * @param llmType the AI provider type
+     * @param timeToFirstTokenNanos time until the first chunk arrived
+     */
+    public void onStreamCompleted(LLMType llmType, long timeToFirstTokenNanos) {
+        update(llmType, limit -> limit.onSuccess(AdaptiveConcurrencyLimit.Signal.TIME_TO_FIRST_TOKEN,
+                timeToFirstTokenNanos, queues.get(llmType).inFlight()));
+    }
+
+    /**
+     * Backs the provider's adaptive limit off after a call that signalled overload: a
+     * timeout, an upstream 429 or 5xx. Client errors and cancelled calls are not reported.
+     *
+     * @param llmType the AI provider type
+     */
+    public void onOverload(LLMType llmType) {
+        update(llmType, AdaptiveConcurrencyLimit::onOverload);
+    }
+
+    private void update(LLMType llmType, ToIntFunction<AdaptiveConcurrencyLimit> sample) {
+
+        AdaptiveConcurrencyLimit limit = limits.get(llmType);
+        if (limit == null) {
+            return;
+        }
+        synchronized (limit) {
+            int next = sample.applyAsInt(limit);
+            queues.get(llmType).resize(next, maxQueuedFor(next));
+        }
+    }
+
+    private int maxQueuedFor(int limit) {
+        return (int) Math.min(admissionProperties.maxQueueDepth(), Math.ceil(limit * limitProperties.maxQueuePerSlot()));
+    }
+
+    private void rejected(LLMType llmType, String priority, String reason) {
+        meterRegistry.counter("chat.admission.rejected",
+                "llm", llmType.getValue(), "priority", priority, "reason", reason).increment();
+    }
+}
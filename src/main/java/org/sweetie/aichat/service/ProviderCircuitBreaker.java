@@ -0,0 +1,242 @@
+package org.sweetie.aichat.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.CircuitBreakerProperties;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Per-provider circuit breakers with closed, open and half-open states.
+ *
+ * <p>Each breaker keeps a count-based sliding window of call outcomes. It opens when
+ * the failure rate or slow-call rate crosses its threshold, rejects calls for the
+ * open duration, then lets a few trial calls through; the breaker closes if all
+ * trials succeed and re-opens on the first failed trial.</p>
+ *
+ * <p>Callers must pair every successful {@link #tryAcquire(LLMType)} with exactly one
+ * of {@link #onSuccess}, {@link #onError} or {@link #release}.</p>
+ */
+@Component
+public class ProviderCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderCircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Point-in-time view of one breaker.
+     *
+     * @param state current state
+     * @param failureRate failure share over the window, or -1 if below the minimum calls
+     * @param slowCallRate slow-call share over the window, or -1 if below the minimum calls
+     * @param bufferedCalls calls currently in the window
+     * @param fallback provider used while this one is open, if any
+     */
+    public record Snapshot(
+            State state,
+            double failureRate,
+            double slowCallRate,
+            int bufferedCalls,
+            String fallback) { }
+
+    private final CircuitBreakerProperties properties;
+    private final Map<LLMType, Breaker> breakers = new EnumMap<>(LLMType.class);
+
+    /**
+     * @param properties thresholds, window size and fallbacks
+     */
+    public ProviderCircuitBreaker(CircuitBreakerProperties properties) {
+        this.properties = properties;
+        for (LLMType llmType : LLMType.values()) {
+            breakers.put(llmType, new Breaker(llmType));
+        }
+    }
+
+    /**
+     * Asks for permission to call the provider.
+     *
+     * @param llmType the AI provider type
+     * @return false if the breaker is open, or half-open with all trial slots taken
+     */
+    public boolean tryAcquire(LLMType llmType) {
+        return !properties.enabled() || breakers.get(llmType).tryAcquire();
+    }
+
+    /**
+     * Records a completed call.
+     *
+     * @param llmType the AI provider type
+     * @param durationNanos how long the call took
+     */
+    public void onSuccess(LLMType llmType, long durationNanos) {
+        if (properties.enabled()) {
+            breakers.get(llmType).record(false, durationNanos > properties.slowCallDuration().toNanos());
+        }
+    }
+
+    /**
+     * Records a failed call.
+     *
+     * @param llmType the AI provider type
+     * @param durationNanos how long the call took before failing
+     */
+    public void onError(LLMType llmType, long durationNanos) {
+        if (properties.enabled()) {
+            breakers.get(llmType).record(true, durationNanos > properties.slowCallDuration().toNanos());
+        }
+    }
+
+    /**
+     * Gives back a permission without recording an outcome, e.g. for a cancelled call.
+     *
+     * @param llmType the AI provider type
+     */
+    public void release(LLMType llmType) {
+        if (properties.enabled()) {
+            breakers.get(llmType).release();
+        }
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @return provider to fail over to while this one's breaker is open
+     */
+    public Optional<LLMType> fallbackFor(LLMType llmType) {
+        return Optional.ofNullable(properties.fallbacks().get(llmType));
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @return current state and rates of the provider's breaker
+     */
+    public Snapshot snapshot(LLMType llmType) {
+        return breakers.get(llmType).snapshot();
+    }
+
+    /**
+     * State machine for one provider, guarded by its own monitor.
+     */
+    private final class Breaker {
+
+        private final LLMType llmType;
+        private final boolean[] failures;
+        private final boolean[] slowCalls;
+        private int next;
+        private int buffered;
+        private int failureCount;
+        private int slowCount;
+
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int trialsInFlight;
+        private int trialsSucceeded;
+
+        Breaker(LLMType llmType) {
+            this.llmType = llmType;
+            this.failures = new boolean[properties.slidingWindowSize()];
+            this.slowCalls = new boolean[properties.slidingWindowSize()];
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < properties.openDuration().toNanos()) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialsInFlight + trialsSucceeded >= properties.halfOpenCalls()) {
+                    return false;
+                }
+                trialsInFlight++;
+            }
+            return true;
+        }
+
+        synchronized void record(boolean failed, boolean slow) {
+            switch (state) {
+                case HALF_OPEN -> {
+                    trialsInFlight = Math.max(0, trialsInFlight - 1);
+                    if (failed || slow) {
+                        transitionTo(State.OPEN);
+                    } else if (++trialsSucceeded >= properties.halfOpenCalls()) {
+                        transitionTo(State.CLOSED);
+                    }
+                }
+                case CLOSED -> {
+                    add(failed, slow);
+                    if (buffered >= properties.minimumCalls()
+                            && (rate(failureCount) >= properties.failureRateThreshold()
+                            || rate(slowCount) >= properties.slowCallRateThreshold())) {
+                        transitionTo(State.OPEN);
+                    }
+                }
+                case OPEN -> {
+                    // Late result of a call admitted before the breaker opened
+                }
+            }
+        }
+
+        synchronized void release() {
+            if (state == State.HALF_OPEN) {
+                trialsInFlight = Math.max(0, trialsInFlight - 1);
+            }
+        }
+
+        synchronized Snapshot snapshot() {
+            boolean enoughCalls = buffered >= properties.minimumCalls();
+            return new Snapshot(
+                    state,
+                    enoughCalls ? rate(failureCount) : -1,
+                    enoughCalls ? rate(slowCount) : -1,
+                    buffered,
+                    fallbackFor(llmType).map(LLMType::getValue).orElse(null));
+        }
+
+        private void add(boolean failed, boolean slow) {
+            if (buffered == failures.length) {
+                failureCount -= failures[next] ? 1 : 0;
+                slowCount -= slowCalls[next] ? 1 : 0;
+            } else {
+                buffered++;
+            }
+            failures[next] = failed;
+            slowCalls[next] = slow;
+            failureCount += failed ? 1 : 0;
+            slowCount += slow ? 1 : 0;
+            next = (next + 1) % failures.length;
+        }
+
+        private double rate(int count) {
+            return buffered == 0 ? 0 : (double) count / buffered;
+        }
+
+        private void transitionTo(State newState) {
+            log.warn("Circuit breaker for LLM {} changed from {} to {}", llmType, state, newState);
+            state = newState;
+            trialsInFlight = 0;
+            trialsSucceeded = 0;
+            if (newState == State.OPEN) {
+                openedAt = System.nanoTime();
+            }
+            if (newState == State.CLOSED) {
+                Arrays.fill(failures, false);
+                Arrays.fill(slowCalls, false);
+                next = 0;
+                buffered = 0;
+                failureCount = 0;
+                slowCount = 0;
+            }
+        }
+    }
+}
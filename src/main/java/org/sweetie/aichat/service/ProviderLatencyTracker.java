@@ -0,0 +1,114 @@
+package org.sweetie.aichat.service;
+
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.RoutingProperties;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Live latency and error-rate model of each AI provider, fed by every upstream call.
+ *
+ * <p>Keeps an exponentially weighted moving average of latency and error rate plus a
+ * sliding window of recent latencies for percentile estimates.</p>
+ */
+@Component
+public class ProviderLatencyTracker {
+
+    /**
+     * Point-in-time view of one provider's observed behaviour.
+     *
+     * @param samples total calls recorded
+     * @param ewmaLatencyMillis smoothed latency of successful calls
+     * @param errorRate smoothed share of failed calls, between 0 and 1
+     * @param p95Millis 95th percentile latency over the recent window
+     * @param p99Millis 99th percentile latency over the recent window
+     */
+    public record Snapshot(
+            long samples,
+            double ewmaLatencyMillis,
+            double errorRate,
+            double p95Millis,
+            double p99Millis) { }
+
+    private final Map<LLMType, ProviderWindow> windows = new EnumMap<>(LLMType.class);
+
+    /**
+     * @param properties EWMA weight and window size
+     */
+    public ProviderLatencyTracker(RoutingProperties properties) {
+        for (LLMType llmType : LLMType.values()) {
+            windows.put(llmType, new ProviderWindow(properties.ewmaAlpha(), properties.windowSize()));
+        }
+    }
+
+    /**
+     * Records the outcome of one upstream call.
+     *
+     * @param llmType the AI provider type
+     * @param latencyNanos wall-clock duration of the call
+     * @param success whether the call produced a response
+     */
+    public void record(LLMType llmType, long latencyNanos, boolean success) {
+        windows.get(llmType).record(latencyNanos / 1_000_000.0, success);
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @return current statistics for the provider
+     */
+    public Snapshot snapshot(LLMType llmType) {
+        return windows.get(llmType).snapshot();
+    }
+
+    /**
+     * Mutable per-provider state, guarded by its own monitor.
+     */
+    private static final class ProviderWindow {
+
+        private final double alpha;
+        private final double[] latencies;
+        private long samples;
+        private int successes;
+        private double ewmaLatency;
+        private double ewmaErrorRate;
+
+        ProviderWindow(double alpha, int windowSize) {
+            this.alpha = alpha;
+            this.latencies = new double[windowSize];
+        }
+
+        synchronized void record(double latencyMillis, boolean success) {
+            samples++;
+            ewmaErrorRate = samples == 1
+                    ? (success ? 0 : 1)
+                    : alpha * (success ? 0 : 1) + (1 - alpha) * ewmaErrorRate;
+
+            if (success) {
+                ewmaLatency = successes == 0
+                        ? latencyMillis
+                        : alpha * latencyMillis + (1 - alpha) * ewmaLatency;
+                latencies[successes % latencies.length] = latencyMillis;
+                successes++;
+            }
+        }
+
+        synchronized Snapshot snapshot() {
+            int filled = Math.min(successes, latencies.length);
+            double[] sorted = Arrays.copyOf(latencies, filled);
+            Arrays.sort(sorted);
+            return new Snapshot(samples, ewmaLatency, ewmaErrorRate,
+                    percentile(sorted, 0.95), percentile(sorted, 0.99));
+        }
+
+        private static double percentile(double[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
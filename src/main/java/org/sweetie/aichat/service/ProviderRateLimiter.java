@@ -0,0 +1,203 @@
+package org.sweetie.aichat.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.exception.AIServiceException;
+import org.sweetie.aichat.exception.RateLimitExceededException;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.RateLimitProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter per provider, accounting both requests and tokens.
+ *
+ * <p>Each call reserves one request and an estimate of its prompt plus completion tokens.
+ * When the buckets are short, the call waits for the refill if that takes no longer than
+ * {@code chat.rate-limit.max-wait}, and is otherwise rejected with
+ * {@link RateLimitExceededException}. Once the provider reports actual usage the token
+ * bucket is corrected by the difference, and the completion estimate tracks real sizes.</p>
+ */
+@Component
+public class ProviderRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderRateLimiter.class);
+
+    /**
+     * Quota taken by one call, returned to {@link #reconcile} or {@link #refund}.
+     *
+     * @param llmType the provider the quota was taken from
+     * @param tokens estimated tokens reserved
+     */
+    public record Reservation(LLMType llmType, long tokens) { }
+
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final Map<LLMType, Buckets> buckets = new EnumMap<>(LLMType.class);
+
+    /**
+     * @param properties per-provider quotas and queueing limit
+     */
+    public ProviderRateLimiter(RateLimitProperties properties) {
+        this.enabled = properties.enabled();
+        this.maxWaitNanos = properties.maxWait().toNanos();
+        properties.limits().forEach((llmType, limit) ->
+                buckets.put(llmType, new Buckets(limit, properties.defaultCompletionTokens())));
+    }
+
+    /**
+     * Reserves quota for one call, waiting briefly for a refill if needed.
+     *
+     * @param llmType the AI provider type
+     * @param promptTokens estimated tokens of everything sent to the provider, replayed history included
+     * @param deadline the request's deadline; the wait never runs past it
+     * @return the reservation to reconcile once the call finishes
+     * @throws RateLimitExceededException if the quota cannot be met within the max wait
+     * @throws org.sweetie.aichat.exception.DeadlineExceededException if the quota cannot be met before the deadline
+     */
+    public Reservation acquire(LLMType llmType, int promptTokens, Deadline deadline) {
+
+        Buckets bucket = buckets.get(llmType);
+        if (!enabled || bucket == null) {
+            return new Reservation(llmType, 0);
+        }
+
+        long tokens = bucket.estimate(promptTokens);
+        long allowedWaitNanos = Math.min(maxWaitNanos, deadline.remainingNanos());
+        long waitNanos = bucket.reserve(tokens, allowedWaitNanos);
+
+        if (waitNanos > maxWaitNanos) {
+            log.warn("Rate limit reached for LLM {}", llmType);
+            throw new RateLimitExceededException(
+                    "Rate limit exceeded for " + llmType.getValue(),
+                    Duration.ofNanos(waitNanos));
+        }
+        if (waitNanos > allowedWaitNanos) {
+            throw deadline.exceeded();
+        }
+
+        Reservation reservation = new Reservation(llmType, tokens);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                refund(reservation);
+                throw new AIServiceException("REQUEST_CANCELLED", "Request was cancelled", ex);
+            }
+        }
+        return reservation;
+    }
+
+    /**
+     * Corrects the token bucket with the usage the provider actually reported.
+     *
+     * @param reservation the quota taken for the call
+     * @param promptTokens prompt tokens reported, or 0 if unknown
+     * @param completionTokens completion tokens reported, or 0 if unknown
+     */
+    public void reconcile(Reservation reservation, int promptTokens, int completionTokens) {
+        Buckets bucket = buckets.get(reservation.llmType());
+        if (enabled && bucket != null && promptTokens + completionTokens > 0) {
+            bucket.reconcile(reservation.tokens(), promptTokens + completionTokens, completionTokens);
+        }
+    }
+
+    /**
+     * Returns the whole reservation, for calls that never reached the provider.
+     *
+     * @param reservation the quota taken for the call
+     */
+    public void refund(Reservation reservation) {
+        Buckets bucket = buckets.get(reservation.llmType());
+        if (enabled && bucket != null) {
+            bucket.refund(reservation.tokens());
+        }
+    }
+
+    /**
+     * Request and token buckets of one provider, guarded by its own monitor.
+     * Balances may go negative: a reservation that must wait is taken up front and
+     * the caller sleeps until the refill covers it.
+     */
+    private static final class Buckets {
+
+        private static final double COMPLETION_EWMA_ALPHA = 0.1;
+        private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+        private final double requestCapacity;
+        private final double tokenCapacity;
+        private final double requestsPerNano;
+        private final double tokensPerNano;
+
+        private double requests;
+        private double tokens;
+        private double expectedCompletionTokens;
+        private long refilledAt = System.nanoTime();
+
+        Buckets(RateLimitProperties.Limit limit, int defaultCompletionTokens) {
+            this.requestCapacity = limit.requestsPerMinute();
+            this.tokenCapacity = limit.tokensPerMinute();
+            this.requestsPerNano = requestCapacity / NANOS_PER_MINUTE;
+            this.tokensPerNano = tokenCapacity / NANOS_PER_MINUTE;
+            this.requests = requestCapacity;
+            this.tokens = tokenCapacity;
+            this.expectedCompletionTokens = defaultCompletionTokens;
+        }
+
+        synchronized long estimate(int promptTokens) {
+            long estimate = promptTokens + Math.round(expectedCompletionTokens);
+            return (long) Math.min(estimate, tokenCapacity);
+        }
+
+        /**
+         * Takes the quota if it is available within maxWaitNanos.
+         *
+         * @return nanos the caller must wait before using the quota; if greater than
+         *         maxWaitNanos nothing was taken
+         */
+        synchronized long reserve(long tokenCost, long maxWaitNanos) {
+            refill();
+            long wait = Math.max(
+                    nanosUntil(1 - requests, requestsPerNano),
+                    nanosUntil(tokenCost - tokens, tokensPerNano));
+            if (wait <= maxWaitNanos) {
+                requests -= 1;
+                tokens -= tokenCost;
+            }
+            return wait;
+        }
+
+        synchronized void reconcile(long reservedTokens, long actualTokens, int completionTokens) {
+            tokens = Math.min(tokenCapacity, tokens + reservedTokens - actualTokens);
+            if (completionTokens > 0) {
+                expectedCompletionTokens = COMPLETION_EWMA_ALPHA * completionTokens
+                        + (1 - COMPLETION_EWMA_ALPHA) * expectedCompletionTokens;
+            }
+        }
+
+        synchronized void refund(long reservedTokens) {
+            requests = Math.min(requestCapacity, requests + 1);
+            tokens = Math.min(tokenCapacity, tokens + reservedTokens);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            long elapsed = now - refilledAt;
+            refilledAt = now;
+            requests = Math.min(requestCapacity, requests + elapsed * requestsPerNano);
+            tokens = Math.min(tokenCapacity, tokens + elapsed * tokensPerNano);
+        }
+
+        private static long nanosUntil(double deficit, double ratePerNano) {
+            if (deficit <= 0) {
+                return 0;
+            }
+            return ratePerNano <= 0 ? Long.MAX_VALUE : (long) Math.ceil(deficit / ratePerNano);
+        }
+    }
+}
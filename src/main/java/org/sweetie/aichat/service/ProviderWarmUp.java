@@ -0,0 +1,54 @@
+package org.sweetie.aichat.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.ProvidersProperties;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Optionally builds every enabled provider's client in parallel once the application is
+ * ready, so the first requests do not pay for it while startup itself stays fast.
+ */
+@Component
+public class ProviderWarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderWarmUp.class);
+
+    private final ChatClientRegistry chatClients;
+    private final ProvidersProperties properties;
+    private final ExecutorService executor;
+
+    public ProviderWarmUp(
+            ChatClientRegistry chatClients,
+            ProvidersProperties properties,
+            @Qualifier("chatExecutor") ExecutorService executor) {
+
+        this.chatClients = chatClients;
+        this.properties = properties;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+
+        if (!properties.warmUp()) {
+            return;
+        }
+
+        for (LLMType llmType : chatClients.enabledProviders()) {
+            executor.execute(() -> {
+                try {
+                    chatClients.initialize(llmType);
+                } catch (RuntimeException ex) {
+                    log.warn("Warm-up of LLM provider {} failed; it will be retried on first use", llmType, ex);
+                }
+            });
+        }
+    }
+}
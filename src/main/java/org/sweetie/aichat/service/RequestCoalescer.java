@@ -0,0 +1,166 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.exception.AIServiceException;
+import org.sweetie.aichat.exception.DeadlineExceededException;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical concurrent chat requests.
+ *
+ * <p>The first caller for a key performs the upstream call; callers arriving while
+ * it is in flight wait for and share its result, or its exception. Blocking and
+ * reactive callers share the same in-flight calls. If the first caller is cancelled,
+ * for example because its client disconnected, or runs out of time, the callers still
+ * waiting start over rather than failing with it. A waiting caller gives up at its own
+ * deadline.</p>
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final ConcurrentHashMap<ResponseCache.Key, CompletableFuture<CompletionResult>> inFlight =
+            new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Counter coalescedCounter;
+
+    /**
+     * @param enabled whether identical requests are coalesced
+     * @param meterRegistry registry receiving the coalesced-request counter
+     */
+    public RequestCoalescer(
+            @Value("${chat.coalescing.enabled:true}") boolean enabled,
+            MeterRegistry meterRegistry) {
+
+        this.enabled = enabled;
+        this.coalescedCounter = Counter.builder("chat.requests.coalesced")
+                .description("Requests served by joining an identical in-flight upstream call")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call, or joins an identical one already in flight.
+     *
+     * @param key identity of the request
+     * @param deadline the request's deadline, bounding the wait for an in-flight call
+     * @param call the upstream call
+     * @return the shared result
+     */
+    public CompletionResult execute(ResponseCache.Key key, Deadline deadline, Supplier<CompletionResult> call) {
+
+        if (!enabled) {
+            return call.get();
+        }
+
+        CompletableFuture<CompletionResult> leader = new CompletableFuture<>();
+        CompletableFuture<CompletionResult> existing = inFlight.putIfAbsent(key, leader);
+
+        if (existing != null) {
+            log.debug("Joining in-flight request for LLM {}", key.llmType());
+            coalescedCounter.increment();
+            try {
+                return await(existing, deadline);
+            } catch (AIServiceException ex) {
+                if (!isAbandoned(ex) || deadline.isExpired() || Thread.currentThread().isInterrupted()) {
+                    throw ex;
+                }
+                log.debug("In-flight request for LLM {} was abandoned, retrying", key.llmType());
+                return execute(key, deadline, call);
+            }
+        }
+
+        // Leave the map before completing, so a follower retrying an abandoned call never rejoins it
+        try {
+            CompletionResult result = call.get();
+            inFlight.remove(key, leader);
+            leader.complete(result);
+            return result;
+        } catch (Throwable ex) {
+            // Errors too: followers must never wait on a leader that is gone
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Reactive variant of {@link #execute}: subscribes to the call, or joins an identical
+     * one already in flight. A joining subscriber that cancels does not cancel the leader;
+     * the caller bounds the wait with its own deadline.
+     *
+     * @param key identity of the request
+     * @param call the upstream call, subscribed to once by the leader
+     * @return Mono of the shared result
+     */
+    public Mono<CompletionResult> executeReactive(ResponseCache.Key key, Supplier<Mono<CompletionResult>> call) {
+
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            CompletableFuture<CompletionResult> leader = new CompletableFuture<>();
+            CompletableFuture<CompletionResult> existing = inFlight.putIfAbsent(key, leader);
+
+            if (existing != null) {
+                log.debug("Joining in-flight request for LLM {}", key.llmType());
+                coalescedCounter.increment();
+                return Mono.fromFuture(existing, true)
+                        .onErrorResume(RequestCoalescer::isAbandoned, ex -> executeReactive(key, call));
+            }
+
+            return call.get()
+                    .doOnNext(leader::complete)
+                    .doOnError(ex -> {
+                        inFlight.remove(key, leader);
+                        leader.completeExceptionally(ex);
+                    })
+                    .doFinally(signal -> {
+                        inFlight.remove(key, leader);
+                        // No-op once completed; otherwise the leader was cancelled
+                        leader.completeExceptionally(
+                                new AIServiceException("REQUEST_CANCELLED", "Request was cancelled"));
+                    });
+        });
+    }
+
+    /**
+     * @return whether the leader gave up for reasons of its own rather than the upstream failing
+     */
+    private static boolean isAbandoned(Throwable ex) {
+        return ex instanceof DeadlineExceededException
+                || ex instanceof AIServiceException aiEx && "REQUEST_CANCELLED".equals(aiEx.getErrorCode());
+    }
+
+    /**
+     * Waits for the leader's outcome, until the deadline at most, and rethrows its failure unchanged.
+     */
+    private static CompletionResult await(CompletableFuture<CompletionResult> leader, Deadline deadline) {
+        try {
+            return leader.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw deadline.exceeded();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new AIServiceException("AI service is unavailable", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AIServiceException("REQUEST_CANCELLED", "Request was cancelled", ex);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.sweetie.aichat.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.ResponseCacheProperties;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory exact-match cache of LLM responses.
+ *
+ * <p>Backed by Caffeine, which evicts with W-TinyLFU so one-off prompts cannot
+ * flush frequently repeated ones. Entries are bounded by approximate byte size,
+ * entry count and time-to-live. Hit, miss and eviction counts are published to
+ * Micrometer under {@code cache.*{cache=chat.response}}.</p>
+ *
+ * <p>When {@code chat.cache.persistent.enabled} is set, a {@link PersistentResponseCache}
+ * sits behind it: every write goes to disk as well, and misses fall through to disk, so
+ * a restarted instance serves entries it cached before.</p>
+ */
+@Component
+public class ResponseCache {
+
+    /** Rough per-entry overhead of the key, value and cache node, in bytes. */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Cache key: the normalized prompt plus everything that changes the answer.
+     *
+     * @param message normalized user message
+     * @param llmType resolved AI provider
+     * @param model model name the provider is configured with
+     */
+    public record Key(String message, LLMType llmType, String model) { }
+
+    private final boolean enabled;
+    private final Cache<Key, CompletionResult> cache;
+    private final PersistentResponseCache persistent;
+
+    /**
+     * Builds the cache from configuration and binds its statistics to the meter registry.
+     *
+     * @param properties cache bounds and TTL
+     * @param persistent on-disk tier consulted on misses
+     * @param meterRegistry registry receiving hit/miss metrics
+     */
+    public ResponseCache(
+            ResponseCacheProperties properties,
+            PersistentResponseCache persistent,
+            MeterRegistry meterRegistry) {
+
+        this.enabled = properties.enabled();
+        this.persistent = persistent;
+        long maximumBytes = properties.maximumSize().toBytes();
+        long maximumEntries = properties.maximumEntries();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Key key, CompletionResult value) -> weigh(key, value, maximumBytes, maximumEntries))
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "chat.response");
+    }
+
+    /**
+     * Builds a cache key, collapsing insignificant whitespace in the message.
+     *
+     * @param message the raw user message
+     * @param llmType the resolved AI provider
+     * @param model the provider's model name
+     * @return key identifying the request
+     */
+    public static Key keyOf(String message, LLMType llmType, String model) {
+        String normalized = WHITESPACE.matcher(message.strip()).replaceAll(" ");
+        return new Key(normalized, llmType, model);
+    }
+
+    /**
+     * @param key the request key
+     * @return cached result, if present and not expired
+     */
+    public Optional<CompletionResult> get(Key key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CompletionResult cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Promote entries found on disk so repeated hits stay in memory
+        Optional<CompletionResult> persisted = persistent.get(key);
+        persisted.ifPresent(result -> cache.put(key, result));
+        return persisted;
+    }
+
+    /**
+     * Stores a response for later identical requests.
+     *
+     * @param key the request key
+     * @param response the upstream result
+     */
+    public void put(Key key, CompletionResult response) {
+        if (enabled && response.content() != null) {
+            cache.put(key, response);
+            persistent.put(key, response);
+        }
+    }
+
+    /**
+     * Weighs an entry by its approximate footprint. Small entries are rounded up to
+     * an equal share of the byte budget so the entry-count bound is honored too.
+     */
+    private static int weigh(Key key, CompletionResult value, long maximumBytes, long maximumEntries) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * (key.message().length() + value.content().length());
+        long minimumShare = maximumEntries > 0 ? maximumBytes / maximumEntries : 0;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(bytes, minimumShare));
+    }
+}
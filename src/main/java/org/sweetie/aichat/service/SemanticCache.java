@@ -0,0 +1,217 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.SemanticCacheProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Response cache that matches prompts by meaning rather than exact text.
+ *
+ * <p>Prompts are embedded by a {@link PromptEmbedder} and looked up in an HNSW index per
+ * provider and model; the nearest cached prompt is a hit if its cosine similarity reaches
+ * {@code similarity-threshold}. Each index holds at most {@code max-entries}; when full it is
+ * rebuilt from its newer, unexpired half.</p>
+ *
+ * <p>Metrics: {@code chat.cache.semantic{result=hit|miss}}, {@code chat.cache.semantic.embed}
+ * and {@code chat.cache.semantic.search} latencies, {@code chat.cache.semantic.similarity} of
+ * hits, and {@code chat.cache.semantic.recall{result=match|mismatch}}, which compares a sample
+ * of approximate lookups with exact search.</p>
+ */
+@Component
+public class SemanticCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticCache.class);
+
+    private record Scope(LLMType llmType, String model) { }
+
+    private record Entry(CompletionResult result, long writtenAtMillis) { }
+
+    /**
+     * Outcome of a lookup; a miss carries the embedding so storing the answer needs no
+     * second embedding call.
+     *
+     * @param result the cached answer, if the lookup hit
+     * @param embedding the prompt's embedding, or null if embedding failed
+     */
+    public record Lookup(Optional<CompletionResult> result, float[] embedding) {
+
+        /** No lookup was made; storing under it is a no-op. */
+        public static final Lookup NONE = new Lookup(Optional.empty(), null);
+    }
+
+    private final boolean enabled;
+    private final SemanticCacheProperties properties;
+    private final PromptEmbedder embedder;
+    private final MeterRegistry meterRegistry;
+    private final Map<Scope, ScopeIndex> indexes = new ConcurrentHashMap<>();
+
+    private final Timer embedTimer;
+    private final Timer searchTimer;
+    private final DistributionSummary hitSimilarity;
+
+    /**
+     * @param properties threshold, bounds and HNSW parameters
+     * @param embedder turns prompts into vectors
+     * @param meterRegistry registry receiving cache metrics
+     */
+    public SemanticCache(SemanticCacheProperties properties, PromptEmbedder embedder, MeterRegistry meterRegistry) {
+
+        this.enabled = properties.enabled();
+        this.properties = properties;
+        this.embedder = embedder;
+        this.meterRegistry = meterRegistry;
+        this.embedTimer = Timer.builder("chat.cache.semantic.embed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.searchTimer = Timer.builder("chat.cache.semantic.search")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.hitSimilarity = DistributionSummary.builder("chat.cache.semantic.similarity")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether lookups are made at all
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param message the user message
+     * @param llmType the resolved provider
+     * @param model the provider's model name
+     * @return the closest cached answer above the threshold, if any
+     */
+    public Lookup get(String message, LLMType llmType, String model) {
+
+        if (!enabled) {
+            return Lookup.NONE;
+        }
+
+        float[] embedding;
+        long start = System.nanoTime();
+        try {
+            embedding = embedder.embed(message);
+        } catch (RuntimeException ex) {
+            // The cache is an optimization; an embedding outage must not fail the request
+            log.warn("Failed to embed prompt for semantic cache", ex);
+            return Lookup.NONE;
+        } finally {
+            embedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        ScopeIndex index = indexes.get(new Scope(llmType, model));
+        Optional<CompletionResult> result = index == null ? Optional.empty() : index.search(embedding);
+        meterRegistry.counter("chat.cache.semantic", "result", result.isPresent() ? "hit" : "miss").increment();
+        return new Lookup(result, embedding);
+    }
+
+    /**
+     * Stores an answer under the prompt's embedding.
+     *
+     * @param lookup the lookup made for the same request
+     * @param llmType the resolved provider
+     * @param model the provider's model name
+     * @param result the upstream result
+     */
+    public void put(Lookup lookup, LLMType llmType, String model, CompletionResult result) {
+
+        if (!enabled || lookup.embedding() == null || result.content() == null) {
+            return;
+        }
+        indexes.computeIfAbsent(new Scope(llmType, model), scope -> new ScopeIndex())
+                .add(lookup.embedding(), new Entry(result, System.currentTimeMillis()));
+    }
+
+    /**
+     * The HNSW index of one provider and model, guarded by a read-write lock.
+     */
+    private final class ScopeIndex {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private HnswIndex<Entry> index = newIndex();
+
+        Optional<CompletionResult> search(float[] embedding) {
+
+            long now = System.currentTimeMillis();
+            long start = System.nanoTime();
+            lock.readLock().lock();
+            try {
+                Optional<HnswIndex.Match<Entry>> nearest = index.search(embedding, 4, properties.efSearch()).stream()
+                        .filter(match -> now - match.value().writtenAtMillis() <= properties.ttl().toMillis())
+                        .findFirst();
+
+                if (ThreadLocalRandom.current().nextDouble() < properties.recallSampleRate()) {
+                    HnswIndex.Match<Entry> exact = index.exactNearest(embedding);
+                    boolean match = exact == null || nearest.map(found -> found.value() == exact.value()).orElse(false);
+                    meterRegistry.counter("chat.cache.semantic.recall", "result", match ? "match" : "mismatch").increment();
+                }
+
+                return nearest
+                        .filter(match -> match.similarity() >= properties.similarityThreshold())
+                        .map(match -> {
+                            hitSimilarity.record(match.similarity());
+                            return match.value().result();
+                        });
+            } finally {
+                lock.readLock().unlock();
+                searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void add(float[] embedding, Entry entry) {
+
+            lock.writeLock().lock();
+            try {
+                if (index.size() >= properties.maxEntries()) {
+                    rebuild();
+                }
+                index.add(embedding, entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Replaces the index with one holding the newer, unexpired half of its entries.
+         */
+        private void rebuild() {
+
+            long now = System.currentTimeMillis();
+            List<float[]> vectors = new ArrayList<>();
+            List<Entry> entries = new ArrayList<>();
+            index.forEach((vector, entry) -> {
+                if (now - entry.writtenAtMillis() <= properties.ttl().toMillis()) {
+                    vectors.add(vector);
+                    entries.add(entry);
+                }
+            });
+
+            HnswIndex<Entry> rebuilt = newIndex();
+            for (int i = Math.max(0, entries.size() - properties.maxEntries() / 2); i < entries.size(); i++) {
+                rebuilt.add(vectors.get(i), entries.get(i));
+            }
+            log.info("Rebuilt semantic cache index: {} of {} entries kept", rebuilt.size(), index.size());
+            index = rebuilt;
+        }
+
+        private HnswIndex<Entry> newIndex() {
+            return new HnswIndex<>(embedder.dimensions(), properties.maxConnections(), properties.efConstruction());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.sweetie.aichat.service;
+
+import java.util.BitSet;
+
+/**
+ * Slab allocator over a fixed range of bytes, e.g. an off-heap segment.
+ *
+ * <p>The range is split into equal pages. A page is assigned to one power-of-two block size
+ * when first needed and returned to the free pool once all its blocks are freed, so memory
+ * moves between size classes as the workload changes. Allocation and free are O(1) bit
+ * operations plus a scan for a page with room; there is no per-block header.</p>
+ *
+ * <p>Not thread-safe; callers serialize access.</p>
+ */
+final class SlabAllocator {
+
+    private final int pageSize;
+    private final int minBlockShift;
+    private final int[] pageBlockSize;
+    private final int[] pageUsed;
+    private final BitSet[] pageBlocks;
+    private final BitSet freePages;
+    private final BitSet[] partialPages;
+
+    /**
+     * @param capacity bytes in the managed range; rounded down to whole pages
+     * @param pageSize bytes per page, a power of two; also the largest allocation
+     * @param minBlockSize smallest block handed out, a power of two
+     */
+    SlabAllocator(long capacity, int pageSize, int minBlockSize) {
+
+        if (Integer.bitCount(pageSize) != 1 || Integer.bitCount(minBlockSize) != 1 || minBlockSize > pageSize) {
+            throw new IllegalArgumentException("Page and block sizes must be powers of two, blocks no larger than pages");
+        }
+        int pages = (int) Math.min(Integer.MAX_VALUE, capacity / pageSize);
+        this.pageSize = pageSize;
+        this.minBlockShift = Integer.numberOfTrailingZeros(minBlockSize);
+        this.pageBlockSize = new int[pages];
+        this.pageUsed = new int[pages];
+        this.pageBlocks = new BitSet[pages];
+        this.freePages = new BitSet(pages);
+        this.freePages.set(0, pages);
+
+        int classes = Integer.numberOfTrailingZeros(pageSize) - minBlockShift + 1;
+        this.partialPages = new BitSet[classes];
+        for (int i = 0; i < classes; i++) {
+            partialPages[i] = new BitSet(pages);
+        }
+    }
+
+    /**
+     * @param size requested bytes
+     * @return the block size that an allocation of {@code size} bytes occupies
+     */
+    int blockSize(int size) {
+        int rounded = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        return Math.max(rounded, 1 << minBlockShift);
+    }
+
+    /**
+     * @param size requested bytes
+     * @return offset of the allocated block, or -1 if the size exceeds a page or no block
+     *         of that size is free
+     */
+    long allocate(int size) {
+
+        if (size > pageSize) {
+            return -1;
+        }
+        int blockSize = blockSize(size);
+        BitSet partial = partialPages[sizeClass(blockSize)];
+
+        int page = partial.nextSetBit(0);
+        if (page < 0) {
+            page = freePages.nextSetBit(0);
+            if (page < 0) {
+                return -1;
+            }
+            freePages.clear(page);
+            pageBlockSize[page] = blockSize;
+            pageBlocks[page] = new BitSet(pageSize / blockSize);
+            partial.set(page);
+        }
+
+        int block = pageBlocks[page].nextClearBit(0);
+        pageBlocks[page].set(block);
+        if (++pageUsed[page] == pageSize / blockSize) {
+            partial.clear(page);
+        }
+        return (long) page * pageSize + (long) block * blockSize;
+    }
+
+    /**
+     * @param offset offset returned by {@link #allocate(int)}
+     */
+    void free(long offset) {
+
+        int page = (int) (offset / pageSize);
+        int blockSize = pageBlockSize[page];
+        int block = (int) (offset % pageSize) / blockSize;
+        BitSet partial = partialPages[sizeClass(blockSize)];
+
+        pageBlocks[page].clear(block);
+        if (--pageUsed[page] == 0) {
+            partial.clear(page);
+            pageBlockSize[page] = 0;
+            pageBlocks[page] = null;
+            freePages.set(page);
+        } else {
+            partial.set(page);
+        }
+    }
+
+    /**
+     * @return bytes in the managed range
+     */
+    long capacity() {
+        return (long) pageBlockSize.length * pageSize;
+    }
+
+    private int sizeClass(int blockSize) {
+        return Integer.numberOfTrailingZeros(blockSize) - minBlockShift;
+    }
+}
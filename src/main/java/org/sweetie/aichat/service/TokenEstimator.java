@@ -0,0 +1,34 @@
+package org.sweetie.aichat.service;
+
+/**
+ * Cheap token count estimate used before the provider reports real usage.
+ *
+ * <p>Assumes roughly four characters per token, which holds well enough for English
+ * text across the supported providers' tokenizers.</p>
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * @param text the text to estimate
+     * @return estimated token count, at least 1 for non-empty text
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return estimate(text.length());
+    }
+
+    /**
+     * @param characters number of characters of text
+     * @return estimated token count for that much text
+     */
+    public static int estimate(long characters) {
+        return (int) Math.min(Integer.MAX_VALUE, (characters + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN);
+    }
+}
@@ -0,0 +1,127 @@
+package org.sweetie.aichat.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fake Anthropic Messages API when the {@code simulator} profile is active.
+ */
+@Profile("simulator")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/simulator/anthropic")
+public class AnthropicSimulatorController {
+
+    private final SimulationEngine engine;
+    private final ObjectMapper objectMapper;
+
+    public AnthropicSimulatorController(SimulationEngine engine, ObjectMapper objectMapper) {
+        this.engine = engine;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Handles Anthropic messages, streaming typed SSE events when {@code "stream": true}.
+     */
+    @PostMapping("/v1/messages")
+    public void messages(@RequestBody JsonNode body, HttpServletResponse response) throws IOException {
+
+        String model = body.path("model").asText("claude-simulated");
+        String prompt = body.path("system").asText("") + SimulationEngine.promptText(body.path("messages"));
+        SimulationEngine.Plan plan = engine.plan("anthropic", prompt);
+
+        if (plan.fault() != SimulationEngine.Fault.NONE) {
+            SimulationEngine.pause(plan.firstTokenDelayNanos());
+            writeError(response, plan.fault());
+            return;
+        }
+
+        String id = "msg_sim_" + UUID.randomUUID().toString().replace("-", "");
+
+        if (!body.path("stream").asBoolean(false)) {
+            SimulationEngine.pause(plan.totalDelayNanos());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            Map<String, Object> message = message(id, model, List.of(Map.of("type", "text", "text", plan.text())),
+                    "end_turn", plan.promptTokens(), plan.completionTokens());
+            objectMapper.writeValue(response.getOutputStream(), message);
+            return;
+        }
+
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        PrintWriter writer = response.getWriter();
+        SimulationEngine.pause(plan.firstTokenDelayNanos());
+
+        writeEvent(writer, "message_start", Map.of(
+                "type", "message_start",
+                "message", message(id, model, List.of(), null, plan.promptTokens(), 0)));
+        writeEvent(writer, "content_block_start", Map.of(
+                "type", "content_block_start",
+                "index", 0,
+                "content_block", Map.of("type", "text", "text", "")));
+
+        for (int i = 0; i < plan.chunks().size(); i++) {
+            if (i > 0) {
+                SimulationEngine.pause(plan.interChunkDelayNanos());
+            }
+            writeEvent(writer, "content_block_delta", Map.of(
+                    "type", "content_block_delta",
+                    "index", 0,
+                    "delta", Map.of("type", "text_delta", "text", plan.chunks().get(i))));
+        }
+
+        writeEvent(writer, "content_block_stop", Map.of("type", "content_block_stop", "index", 0));
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("stop_reason", "end_turn");
+        delta.put("stop_sequence", null);
+        writeEvent(writer, "message_delta", Map.of(
+                "type", "message_delta",
+                "delta", delta,
+                "usage", Map.of("output_tokens", plan.completionTokens())));
+        writeEvent(writer, "message_stop", Map.of("type", "message_stop"));
+    }
+
+    private static Map<String, Object> message(String id, String model, List<?> content,
+                                               String stopReason, int inputTokens, int outputTokens) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("id", id);
+        message.put("type", "message");
+        message.put("role", "assistant");
+        message.put("model", model);
+        message.put("content", content);
+        message.put("stop_reason", stopReason);
+        message.put("stop_sequence", null);
+        message.put("usage", Map.of("input_tokens", inputTokens, "output_tokens", outputTokens));
+        return message;
+    }
+
+    private void writeEvent(PrintWriter writer, String event, Object data) throws IOException {
+        writer.write("event: " + event + "\ndata: " + objectMapper.writeValueAsString(data) + "\n\n");
+        writer.flush();
+    }
+
+    private void writeError(HttpServletResponse response, SimulationEngine.Fault fault) throws IOException {
+        boolean rateLimited = fault == SimulationEngine.Fault.RATE_LIMITED;
+        response.setStatus(rateLimited ? 429 : 529);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "type", "error",
+                "error", Map.of(
+                        "type", rateLimited ? "rate_limit_error" : "overloaded_error",
+                        "message", rateLimited ? "Simulated rate limit" : "Simulated overload")));
+    }
+}
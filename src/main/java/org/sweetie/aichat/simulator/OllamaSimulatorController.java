@@ -0,0 +1,98 @@
+package org.sweetie.aichat.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fake Ollama chat API when the {@code simulator} profile is active.
+ */
+@Profile("simulator")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/simulator/ollama")
+public class OllamaSimulatorController {
+
+    private final SimulationEngine engine;
+    private final ObjectMapper objectMapper;
+
+    public OllamaSimulatorController(SimulationEngine engine, ObjectMapper objectMapper) {
+        this.engine = engine;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Handles Ollama chat requests; like Ollama, streams NDJSON unless {@code "stream": false}.
+     */
+    @PostMapping("/api/chat")
+    public void chat(@RequestBody JsonNode body, HttpServletResponse response) throws IOException {
+
+        String model = body.path("model").asText("llama3");
+        SimulationEngine.Plan plan = engine.plan("ollama", SimulationEngine.promptText(body.path("messages")));
+
+        if (plan.fault() != SimulationEngine.Fault.NONE) {
+            SimulationEngine.pause(plan.firstTokenDelayNanos());
+            response.setStatus(plan.fault() == SimulationEngine.Fault.RATE_LIMITED ? 429 : 500);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), Map.of("error", "Simulated " + plan.fault()));
+            return;
+        }
+
+        if (!body.path("stream").asBoolean(true)) {
+            SimulationEngine.pause(plan.totalDelayNanos());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), done(model, plan, plan.text()));
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        PrintWriter writer = response.getWriter();
+        SimulationEngine.pause(plan.firstTokenDelayNanos());
+
+        for (int i = 0; i < plan.chunks().size(); i++) {
+            if (i > 0) {
+                SimulationEngine.pause(plan.interChunkDelayNanos());
+            }
+            writeLine(writer, Map.of(
+                    "model", model,
+                    "created_at", Instant.now().toString(),
+                    "message", Map.of("role", "assistant", "content", plan.chunks().get(i)),
+                    "done", false));
+        }
+        writeLine(writer, done(model, plan, ""));
+    }
+
+    private static Map<String, Object> done(String model, SimulationEngine.Plan plan, String content) {
+        Map<String, Object> done = new HashMap<>();
+        done.put("model", model);
+        done.put("created_at", Instant.now().toString());
+        done.put("message", Map.of("role", "assistant", "content", content));
+        done.put("done", true);
+        done.put("done_reason", "stop");
+        done.put("total_duration", plan.totalDelayNanos());
+        done.put("load_duration", 0);
+        done.put("prompt_eval_count", plan.promptTokens());
+        done.put("prompt_eval_duration", plan.firstTokenDelayNanos());
+        done.put("eval_count", plan.completionTokens());
+        done.put("eval_duration", plan.totalDelayNanos() - plan.firstTokenDelayNanos());
+        return done;
+    }
+
+    private void writeLine(PrintWriter writer, Object data) throws IOException {
+        writer.write(objectMapper.writeValueAsString(data) + "\n");
+        writer.flush();
+    }
+}
@@ -0,0 +1,143 @@
+package org.sweetie.aichat.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fake OpenAI-compatible chat completions API, serving both the OpenAI and the Gemini
+ * (OpenAI-compatible endpoint) clients when the {@code simulator} profile is active.
+ */
+@Profile("simulator")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/simulator")
+public class OpenAiSimulatorController {
+
+    private final SimulationEngine engine;
+    private final ObjectMapper objectMapper;
+
+    public OpenAiSimulatorController(SimulationEngine engine, ObjectMapper objectMapper) {
+        this.engine = engine;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Handles OpenAI chat completions, streaming with SSE when {@code "stream": true}.
+     */
+    @PostMapping("/openai/v1/chat/completions")
+    public void openAiCompletions(@RequestBody JsonNode body, HttpServletResponse response) throws IOException {
+        complete("openai", body, response);
+    }
+
+    /**
+     * Handles Gemini's OpenAI-compatible chat completions.
+     */
+    @PostMapping("/gemini/chat/completions")
+    public void geminiCompletions(@RequestBody JsonNode body, HttpServletResponse response) throws IOException {
+        complete("gemini", body, response);
+    }
+
+    private void complete(String provider, JsonNode body, HttpServletResponse response) throws IOException {
+
+        String model = body.path("model").asText(provider + "-simulated");
+        SimulationEngine.Plan plan = engine.plan(provider, SimulationEngine.promptText(body.path("messages")));
+
+        if (plan.fault() != SimulationEngine.Fault.NONE) {
+            SimulationEngine.pause(plan.firstTokenDelayNanos());
+            writeError(response, plan.fault());
+            return;
+        }
+
+        String id = "chatcmpl-sim-" + UUID.randomUUID();
+        long created = System.currentTimeMillis() / 1000;
+        Map<String, Object> usage = Map.of(
+                "prompt_tokens", plan.promptTokens(),
+                "completion_tokens", plan.completionTokens(),
+                "total_tokens", plan.promptTokens() + plan.completionTokens());
+
+        if (!body.path("stream").asBoolean(false)) {
+            SimulationEngine.pause(plan.totalDelayNanos());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), Map.of(
+                    "id", id,
+                    "object", "chat.completion",
+                    "created", created,
+                    "model", model,
+                    "choices", List.of(Map.of(
+                            "index", 0,
+                            "message", Map.of("role", "assistant", "content", plan.text()),
+                            "finish_reason", "stop")),
+                    "usage", usage));
+            return;
+        }
+
+        response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+        PrintWriter writer = response.getWriter();
+        SimulationEngine.pause(plan.firstTokenDelayNanos());
+
+        for (int i = 0; i < plan.chunks().size(); i++) {
+            if (i > 0) {
+                SimulationEngine.pause(plan.interChunkDelayNanos());
+            }
+            writeEvent(writer, chunk(id, created, model,
+                    Map.of("role", "assistant", "content", plan.chunks().get(i)), null));
+        }
+        writeEvent(writer, chunk(id, created, model, Map.of(), "stop"));
+
+        if (body.path("stream_options").path("include_usage").asBoolean(false)) {
+            writeEvent(writer, Map.of(
+                    "id", id,
+                    "object", "chat.completion.chunk",
+                    "created", created,
+                    "model", model,
+                    "choices", List.of(),
+                    "usage", usage));
+        }
+        writer.write("data: [DONE]\n\n");
+        writer.flush();
+    }
+
+    private static Map<String, Object> chunk(String id, long created, String model,
+                                             Map<String, Object> delta, String finishReason) {
+        Map<String, Object> choice = new HashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        return Map.of(
+                "id", id,
+                "object", "chat.completion.chunk",
+                "created", created,
+                "model", model,
+                "choices", List.of(choice));
+    }
+
+    private void writeEvent(PrintWriter writer, Object data) throws IOException {
+        writer.write("data: " + objectMapper.writeValueAsString(data) + "\n\n");
+        writer.flush();
+    }
+
+    private void writeError(HttpServletResponse response, SimulationEngine.Fault fault) throws IOException {
+        boolean rateLimited = fault == SimulationEngine.Fault.RATE_LIMITED;
+        response.setStatus(rateLimited ? 429 : 500);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", Map.of(
+                "message", rateLimited ? "Simulated rate limit" : "Simulated server error",
+                "type", rateLimited ? "rate_limit_exceeded" : "server_error",
+                "code", rateLimited ? "rate_limit_exceeded" : "server_error")));
+    }
+}
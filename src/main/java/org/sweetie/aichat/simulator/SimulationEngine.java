@@ -0,0 +1,152 @@
+package org.sweetie.aichat.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.sweetie.aichat.exception.AIServiceException;
+import org.sweetie.aichat.service.TokenEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how a simulated provider answers a request: which fault to inject, how long
+ * to wait for the first token, and the text split into streaming chunks.
+ */
+@Component
+@Profile("simulator")
+public class SimulationEngine {
+
+    private static final String[] WORDS = {
+            "the", "market", "risk", "reward", "ratio", "price", "order", "position", "trade",
+            "stop", "loss", "limit", "profit", "volatility", "trend", "signal", "capital", "entry",
+            "exit", "level", "support", "resistance", "momentum", "volume", "strategy", "and", "of"
+    };
+
+    public enum Fault {
+        NONE,
+        SERVER_ERROR,
+        RATE_LIMITED
+    }
+
+    /**
+     * How one request will be answered.
+     *
+     * @param fault injected failure, or NONE
+     * @param firstTokenDelayNanos delay before the first chunk (or the whole response)
+     * @param interChunkDelayNanos delay between streamed chunks
+     * @param chunks completion text split into streaming chunks
+     * @param promptTokens reported prompt tokens
+     * @param completionTokens reported completion tokens
+     */
+    public record Plan(
+            Fault fault,
+            long firstTokenDelayNanos,
+            long interChunkDelayNanos,
+            List<String> chunks,
+            int promptTokens,
+            int completionTokens) {
+
+        public String text() {
+            return String.join("", chunks);
+        }
+
+        /**
+         * @return time a non-streaming response takes to generate completely
+         */
+        public long totalDelayNanos() {
+            return firstTokenDelayNanos + interChunkDelayNanos * Math.max(0, chunks.size() - 1);
+        }
+    }
+
+    private final SimulatorProperties properties;
+
+    public SimulationEngine(SimulatorProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param provider simulated provider name
+     * @param prompt concatenated prompt text
+     * @return randomized answer plan following the provider's configured behaviour
+     */
+    public Plan plan(String provider, String prompt) {
+
+        SimulatorProperties.Behaviour behaviour = properties.behaviourFor(provider);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        double roll = random.nextDouble();
+        Fault fault = roll < behaviour.errorRate()
+                ? Fault.SERVER_ERROR
+                : roll < behaviour.errorRate() + behaviour.rateLimitRate() ? Fault.RATE_LIMITED : Fault.NONE;
+
+        long medianNanos = behaviour.firstTokenLatency().toNanos();
+        long firstTokenDelay = (long) (medianNanos * Math.exp(behaviour.latencySigma() * random.nextGaussian()));
+
+        int chunkTokens = Math.max(1, behaviour.chunkTokens());
+        long interChunkDelay = behaviour.tokensPerSecond() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) * chunkTokens / behaviour.tokensPerSecond())
+                : 0;
+
+        int completionTokens = random.nextInt(
+                behaviour.minCompletionTokens(), Math.max(behaviour.minCompletionTokens(), behaviour.maxCompletionTokens()) + 1);
+
+        List<String> chunks = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder();
+        for (int i = 0; i < completionTokens; i++) {
+            chunk.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            if ((i + 1) % chunkTokens == 0) {
+                chunks.add(chunk.toString());
+                chunk.setLength(0);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk.toString());
+        }
+
+        return new Plan(fault, firstTokenDelay, interChunkDelay, chunks,
+                TokenEstimator.estimate(prompt), completionTokens);
+    }
+
+    /**
+     * Concatenates the text of a chat message array, accepting both plain string content
+     * and arrays of text blocks.
+     *
+     * @param messages the "messages" node of a request body
+     * @return all message text joined by newlines
+     */
+    public static String promptText(JsonNode messages) {
+
+        StringBuilder prompt = new StringBuilder();
+        if (messages != null) {
+            for (JsonNode message : messages) {
+                JsonNode content = message.path("content");
+                if (content.isTextual()) {
+                    prompt.append(content.asText()).append('\n');
+                } else {
+                    for (JsonNode block : content) {
+                        prompt.append(block.path("text").asText()).append('\n');
+                    }
+                }
+            }
+        }
+        return prompt.toString();
+    }
+
+    /**
+     * Sleeps for the given time; cheap on the virtual threads requests are served on.
+     */
+    public static void pause(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AIServiceException("REQUEST_CANCELLED", "Simulated response was interrupted", ex);
+        }
+    }
+}
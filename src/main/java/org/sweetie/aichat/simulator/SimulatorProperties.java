@@ -0,0 +1,51 @@
+package org.sweetie.aichat.simulator;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Behaviour of the bundled fake upstream providers, active with the {@code simulator} profile.
+ *
+ * @param defaults behaviour of every simulated provider unless overridden
+ * @param providers per-provider overrides keyed by "openai", "gemini", "anthropic" or "ollama"
+ */
+@ConfigurationProperties(prefix = "simulator")
+public record SimulatorProperties(
+        @DefaultValue Behaviour defaults,
+        Map<String, Behaviour> providers) {
+
+    public SimulatorProperties {
+        providers = providers == null ? Map.of() : Map.copyOf(providers);
+    }
+
+    /**
+     * @param provider simulated provider name
+     * @return the provider's behaviour, or the defaults
+     */
+    public Behaviour behaviourFor(String provider) {
+        return providers.getOrDefault(provider, defaults);
+    }
+
+    /**
+     * @param firstTokenLatency median delay before the first token (log-normally distributed)
+     * @param latencySigma shape of the log-normal latency distribution; 0 makes latency constant
+     * @param tokensPerSecond generation speed after the first token
+     * @param chunkTokens tokens per streamed chunk
+     * @param minCompletionTokens shortest generated completion
+     * @param maxCompletionTokens longest generated completion
+     * @param errorRate share of requests answered with HTTP 500
+     * @param rateLimitRate share of requests answered with HTTP 429
+     */
+    public record Behaviour(
+            @DefaultValue("300ms") Duration firstTokenLatency,
+            @DefaultValue("0.5") double latencySigma,
+            @DefaultValue("60") double tokensPerSecond,
+            @DefaultValue("4") int chunkTokens,
+            @DefaultValue("40") int minCompletionTokens,
+            @DefaultValue("200") int maxCompletionTokens,
+            @DefaultValue("0.0") double errorRate,
+            @DefaultValue("0.0") double rateLimitRate) { }
+}
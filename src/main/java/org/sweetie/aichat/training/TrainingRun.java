@@ -0,0 +1,95 @@
+package org.sweetie.aichat.training;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+import org.sweetie.aichat.MultiLlmApplication;
+import org.sweetie.aichat.dto.ChatRequest;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.service.ChatClientRegistry;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Training workload for the JVM AOT cache ({@code mvn -Paot-cache package}). The build's
+ * record step launches this class instead of the application's main class: it starts the
+ * application, drives the chat endpoints against every enabled provider so the classes and
+ * code paths of real requests get loaded and linked, then shuts the application down.
+ * It is not a bean, so nothing in a normal run of the application can trigger it.
+ * <p>
+ * Run together with the {@code simulator} and {@code training} profiles so no provider is
+ * actually called.
+ */
+public final class TrainingRun {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainingRun.class);
+
+    private TrainingRun() {
+    }
+
+    /**
+     * @param args application arguments, e.g. {@code --spring.profiles.active=simulator,training}
+     */
+    public static void main(String[] args) {
+
+        ConfigurableApplicationContext context = SpringApplication.run(MultiLlmApplication.class, args);
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            int iterations = context.getEnvironment().getProperty("training.iterations", Integer.class, 20);
+            train(RestClient.create("http://localhost:" + port),
+                    context.getBean(ChatClientRegistry.class).enabledProviders(), iterations);
+        } catch (RuntimeException ex) {
+            log.error("Training run failed", ex);
+            SpringApplication.exit(context);
+            System.exit(1);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private static void train(RestClient client, Set<LLMType> providers, int iterations) {
+
+        long start = System.nanoTime();
+        int requests = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (LLMType llmType : providers) {
+                String llm = llmType.getValue();
+
+                // Uncached POST, then the same request twice more via GET so the second one hits the cache
+                exchange(client.post().uri("/api/chat")
+                        .body(new ChatRequest("Training request " + i, llm, false)));
+                exchange(client.get().uri("/api/chat?message={m}&llm={llm}", "Cached training " + i, llm));
+                exchange(client.get().uri("/api/chat?message={m}&llm={llm}", "Cached training " + i, llm));
+                exchange(client.post().uri("/api/chat/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .body(new ChatRequest("Streaming training " + i, llm, false)));
+                requests += 4;
+            }
+            exchange(client.post().uri("/api/chat/batch")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .body(List.of(
+                            new ChatRequest("Batch training " + i, null, false),
+                            new ChatRequest(" ", null))));
+            exchange(client.post().uri("/api/chat").body(new ChatRequest(" ", null)));
+            requests += 2;
+        }
+
+        log.info("Training run sent {} requests in {} ms, exiting", requests, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Sends the request and drains the body; error statuses are expected for the invalid requests.
+     */
+    private static HttpStatusCode exchange(RestClient.RequestHeadersSpec<?> request) {
+        return request.exchange((req, response) -> {
+            response.getBody().transferTo(OutputStream.nullOutputStream());
+            return response.getStatusCode();
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Queueing for provider slots once a provider's bulkhead is full.
+ *
+ * @param maxQueueDepth max requests waiting per provider; beyond it requests fail at once
+ * @param defaultTenantWeight fair-share weight of tenants without an explicit weight
+ * @param tenantWeights optional per-tenant weights; a tenant of weight 2 gets twice the
+ *                      slots of a tenant of weight 1 within the same priority class
+ */
+@ConfigurationProperties(prefix = "chat.admission")
+public record AdmissionProperties(
+        @DefaultValue("1000") int maxQueueDepth,
+        @DefaultValue("1") int defaultTenantWeight,
+        Map<String, Integer> tenantWeights) {
+
+    public AdmissionProperties {
+        tenantWeights = tenantWeights == null ? Map.of() : Map.copyOf(tenantWeights);
+    }
+
+    /**
+     * @param tenant the tenant id
+     * @return configured weight, or the default when none is set
+     */
+    public int weightFor(String tenant) {
+        return Math.max(1, tenantWeights.getOrDefault(tenant, defaultTenantWeight));
+    }
+}
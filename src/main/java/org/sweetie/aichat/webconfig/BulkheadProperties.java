@@ -0,0 +1,36 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.sweetie.aichat.model.LLMType;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-provider concurrency limits for upstream LLM calls.
+ *
+ * @param defaultMaxConcurrent max in-flight calls for providers without an explicit limit
+ * @param acquireTimeout how long a request waits for a free slot before failing
+ * @param maxConcurrent optional per-provider overrides of the in-flight limit
+ */
+@ConfigurationProperties(prefix = "chat.bulkhead")
+public record BulkheadProperties(
+        @DefaultValue("100") int defaultMaxConcurrent,
+        @DefaultValue("2s") Duration acquireTimeout,
+        Map<LLMType, Integer> maxConcurrent) {
+
+    public BulkheadProperties {
+        maxConcurrent = maxConcurrent == null ? Map.of() : Map.copyOf(maxConcurrent);
+    }
+
+    /**
+     * Returns the in-flight limit for the given provider.
+     *
+     * @param llmType the AI provider type
+     * @return configured limit, or the default when none is set
+     */
+    public int maxConcurrentFor(LLMType llmType) {
+        return maxConcurrent.getOrDefault(llmType, defaultMaxConcurrent);
+    }
+}
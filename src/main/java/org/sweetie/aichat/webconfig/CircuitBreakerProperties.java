@@ -0,0 +1,38 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.sweetie.aichat.model.LLMType;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings for the per-provider circuit breakers.
+ *
+ * @param enabled whether breakers can open at all
+ * @param slidingWindowSize number of most recent calls the rates are computed over
+ * @param minimumCalls calls required in the window before the breaker may open
+ * @param failureRateThreshold failure share (0..1) that opens the breaker
+ * @param slowCallDuration calls slower than this count as slow
+ * @param slowCallRateThreshold slow-call share (0..1) that opens the breaker
+ * @param openDuration how long an open breaker rejects calls before probing
+ * @param halfOpenCalls trial calls allowed while half-open
+ * @param fallbacks provider to fail over to, keyed by provider, while its breaker is open
+ */
+@ConfigurationProperties(prefix = "chat.circuit-breaker")
+public record CircuitBreakerProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int slidingWindowSize,
+        @DefaultValue("10") int minimumCalls,
+        @DefaultValue("0.5") double failureRateThreshold,
+        @DefaultValue("20s") Duration slowCallDuration,
+        @DefaultValue("0.8") double slowCallRateThreshold,
+        @DefaultValue("30s") Duration openDuration,
+        @DefaultValue("3") int halfOpenCalls,
+        Map<LLMType, LLMType> fallbacks) {
+
+    public CircuitBreakerProperties {
+        fallbacks = fallbacks == null ? Map.of() : Map.copyOf(fallbacks);
+    }
+}
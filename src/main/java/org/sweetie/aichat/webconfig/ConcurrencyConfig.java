@@ -0,0 +1,20 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    /**
+     * Executor for upstream calls that run beside the request thread (hedges, fan-out).
+     * One virtual thread per task, so blocked LLM calls cost no platform threads.
+     */
+    @Bean(name = "chatExecutor", destroyMethod = "close")
+    public ExecutorService chatExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,30 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Adaptive per-provider concurrency limits. When enabled, each provider's in-flight limit
+ * moves between {@code minLimit} and its {@code chat.bulkhead} limit as calls complete.
+ *
+ * @param enabled whether limits adapt; when off, the bulkhead limits are used as they are
+ * @param algorithm AIMD reacts to errors only; VEGAS also backs off when latency rises above its no-load baseline
+ * @param minLimit lowest the limit may fall to
+ * @param initialLimit limit each provider starts at, capped by its bulkhead limit
+ * @param backoffRatio factor the limit is multiplied by after a failed call
+ * @param maxQueuePerSlot requests allowed to wait per unit of limit; beyond it new requests are shed
+ */
+@ConfigurationProperties(prefix = "chat.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("VEGAS") Algorithm algorithm,
+        @DefaultValue("1") int minLimit,
+        @DefaultValue("10") int initialLimit,
+        @DefaultValue("0.9") double backoffRatio,
+        @DefaultValue("2") double maxQueuePerSlot) {
+
+    public enum Algorithm {
+        AIMD,
+        VEGAS
+    }
+}
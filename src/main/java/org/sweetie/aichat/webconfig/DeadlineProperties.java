@@ -0,0 +1,39 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.sweetie.aichat.model.LLMType;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Time budgets of chat requests.
+ *
+ * @param defaultTimeout budget of requests that do not ask for one
+ * @param maxTimeout upper bound of any request's budget, for providers without an explicit cap
+ * @param maxTimeouts optional per-provider caps, e.g. lower for a slow local model
+ */
+@ConfigurationProperties(prefix = "chat.deadlines")
+public record DeadlineProperties(
+        @DefaultValue("60s") Duration defaultTimeout,
+        @DefaultValue("120s") Duration maxTimeout,
+        Map<LLMType, Duration> maxTimeouts) {
+
+    public DeadlineProperties {
+        maxTimeouts = maxTimeouts == null ? Map.of() : Map.copyOf(maxTimeouts);
+    }
+
+    /**
+     * Returns the budget of a request to the given provider.
+     *
+     * @param llmType the AI provider type
+     * @param requestedMillis budget asked for by the client, or null for the default
+     * @return the requested or default budget, capped for the provider
+     */
+    public Duration budgetFor(LLMType llmType, Long requestedMillis) {
+        Duration budget = requestedMillis == null ? defaultTimeout : Duration.ofMillis(requestedMillis);
+        Duration cap = maxTimeouts.getOrDefault(llmType, maxTimeout);
+        return budget.compareTo(cap) > 0 ? cap : budget;
+    }
+}
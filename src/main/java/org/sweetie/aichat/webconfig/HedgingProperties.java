@@ -0,0 +1,30 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.sweetie.aichat.model.LLMType;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings for hedged requests: a backup call to another provider when the primary is slow.
+ *
+ * @param enabled whether hedging is active
+ * @param delay how long to wait for the primary before hedging
+ * @param adaptiveDelay use the primary's observed p95 latency as the delay once enough samples exist
+ * @param minSamples samples required before the observed p95 is trusted
+ * @param alternates provider to hedge to, keyed by primary provider
+ */
+@ConfigurationProperties(prefix = "chat.hedging")
+public record HedgingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("2s") Duration delay,
+        @DefaultValue("true") boolean adaptiveDelay,
+        @DefaultValue("20") int minSamples,
+        Map<LLMType, LLMType> alternates) {
+
+    public HedgingProperties {
+        alternates = alternates == null ? Map.of() : Map.copyOf(alternates);
+    }
+}
@@ -1,18 +1,43 @@
 package org.sweetie.aichat.webconfig;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class LLMConfig {
 
+    /**
+     * Makes the auto-configured provider chat and embedding models lazy, so each is built on
+     * first use through {@code ChatClientRegistry} or the semantic cache and an unused
+     * provider is never built.
+     */
     @Bean
+    public static BeanFactoryPostProcessor lazyChatModels() {
+        return beanFactory -> {
+            for (Class<?> modelType : new Class<?>[] {ChatModel.class, EmbeddingModel.class}) {
+                for (String name : beanFactory.getBeanNamesForType(modelType, true, false)) {
+                    if (beanFactory.containsBeanDefinition(name)) {
+                        beanFactory.getBeanDefinition(name).setLazyInit(true);
+                    }
+                }
+            }
+        };
+    }
+
+    @Bean
+    @Lazy
     @Qualifier("geminiChatClient")
     public ChatClient geminiChatModel(
             OpenAiChatModel baseChatModel,
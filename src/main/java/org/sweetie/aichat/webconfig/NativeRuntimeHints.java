@@ -0,0 +1,41 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.ai.anthropic.AnthropicChatModel;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.sweetie.aichat.dto.BatchChatResult;
+import org.sweetie.aichat.dto.ChatRequest;
+import org.sweetie.aichat.dto.ChatResponse;
+import org.sweetie.aichat.dto.ErrorResponse;
+
+/**
+ * Reflection hints for a GraalVM native image ({@code mvn -Pnative package}).
+ *
+ * <p>The API records are (de)serialized by Jackson, and the provider models are built
+ * lazily through {@code LLMConfig} and {@code ChatClientRegistry}, so both are registered
+ * explicitly rather than relying on what AOT processing discovers on its own.</p>
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+
+        bindingHints.registerReflectionHints(hints.reflection(),
+                ChatRequest.class, ChatResponse.class, ErrorResponse.class, BatchChatResult.class);
+
+        for (Class<?> providerType : new Class<?>[] {
+                OpenAiChatModel.class, OllamaChatModel.class, AnthropicChatModel.class,
+                OpenAiApi.class, OpenAiChatOptions.class}) {
+            hints.reflection().registerType(providerType,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
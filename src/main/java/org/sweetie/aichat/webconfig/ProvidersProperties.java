@@ -0,0 +1,26 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.sweetie.aichat.model.LLMType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Which AI providers this instance serves and when their clients are built.
+ *
+ * @param enabled providers that may be called; the others are never instantiated
+ * @param warmUp build the enabled providers' clients in parallel right after startup
+ *               instead of on their first request
+ */
+@ConfigurationProperties(prefix = "chat.providers")
+public record ProvidersProperties(
+        @DefaultValue({"openai", "gemini", "anthropic", "ollama"}) Set<LLMType> enabled,
+        @DefaultValue("false") boolean warmUp) {
+
+    public ProvidersProperties {
+        enabled = enabled == null || enabled.isEmpty() ? Set.of() : Collections.unmodifiableSet(EnumSet.copyOf(enabled));
+    }
+}
@@ -0,0 +1,34 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.sweetie.aichat.model.LLMType;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Local quotas mirroring each provider's upstream rate limits.
+ *
+ * @param enabled whether requests are rate limited at all
+ * @param maxWait how long a request may queue for quota before it is rejected with 429
+ * @param defaultCompletionTokens completion size assumed until real usage has been observed
+ * @param limits per-provider quotas; providers without an entry are not limited
+ */
+@ConfigurationProperties(prefix = "chat.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1s") Duration maxWait,
+        @DefaultValue("512") int defaultCompletionTokens,
+        Map<LLMType, Limit> limits) {
+
+    public RateLimitProperties {
+        limits = limits == null ? Map.of() : Map.copyOf(limits);
+    }
+
+    /**
+     * @param requestsPerMinute requests allowed per minute
+     * @param tokensPerMinute prompt plus completion tokens allowed per minute
+     */
+    public record Limit(long requestsPerMinute, long tokensPerMinute) { }
+}
@@ -0,0 +1,32 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorResourceFactory;
+
+/**
+ * Server for the reactive mode ({@code spring.main.web-application-type=reactive}).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    /**
+     * Reactor Netty server. Tomcat stays on the classpath for the servlet mode, and Spring
+     * Boot would otherwise prefer it for a reactive application too.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+            ObjectProvider<ReactorResourceFactory> resourceFactory,
+            ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        resourceFactory.ifAvailable(factory::setResourceFactory);
+        factory.getServerCustomizers().addAll(serverCustomizers.orderedStream().toList());
+        return factory;
+    }
+}
@@ -0,0 +1,40 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the exact-match chat response cache.
+ *
+ * @param enabled whether responses are cached at all
+ * @param maximumSize upper bound on the approximate memory held by cached entries
+ * @param maximumEntries upper bound on the number of cached entries
+ * @param ttl how long an entry stays valid after it was written
+ * @param persistent the on-disk tier behind the in-memory cache
+ */
+@ConfigurationProperties(prefix = "chat.cache")
+public record ResponseCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("64MB") DataSize maximumSize,
+        @DefaultValue("10000") long maximumEntries,
+        @DefaultValue("10m") Duration ttl,
+        @DefaultValue Persistent persistent) {
+
+    /**
+     * @param enabled whether responses are also written to disk and served after restarts
+     * @param directory where segment files are kept
+     * @param segmentSize size of each memory-mapped segment file
+     * @param maxSegments segments kept before the oldest is compacted away
+     * @param ttl how long a persisted entry stays valid after it was written
+     */
+    public record Persistent(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("data/response-cache") Path directory,
+            @DefaultValue("64MB") DataSize segmentSize,
+            @DefaultValue("8") int maxSegments,
+            @DefaultValue("24h") Duration ttl) { }
+}
@@ -0,0 +1,35 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.sweetie.aichat.model.LLMType;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for choosing a provider when the request does not name one.
+ *
+ * @param mode STATIC always uses {@code spring.ai.default-provider}; AUTO picks the fastest healthy candidate
+ * @param candidates providers eligible for automatic routing
+ * @param maxErrorRate error rate above which a provider is considered unhealthy
+ * @param explorationRatio share of auto-routed requests sent to a random candidate to keep stats fresh
+ * @param ewmaAlpha weight of the newest sample in the latency and error-rate averages
+ * @param windowSize number of recent latency samples kept per provider for percentiles
+ * @param probeInterval how often a candidate without samples is sent one request while others have samples
+ */
+@ConfigurationProperties(prefix = "chat.routing")
+public record RoutingProperties(
+        @DefaultValue("STATIC") Mode mode,
+        @DefaultValue({"openai", "gemini", "anthropic", "ollama"}) List<LLMType> candidates,
+        @DefaultValue("0.25") double maxErrorRate,
+        @DefaultValue("0.05") double explorationRatio,
+        @DefaultValue("0.2") double ewmaAlpha,
+        @DefaultValue("256") int windowSize,
+        @DefaultValue("1s") Duration probeInterval) {
+
+    public enum Mode {
+        STATIC,
+        AUTO
+    }
+}
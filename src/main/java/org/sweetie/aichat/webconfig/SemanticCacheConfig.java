@@ -0,0 +1,31 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.sweetie.aichat.service.EmbeddingModelPromptEmbedder;
+import org.sweetie.aichat.service.HashingPromptEmbedder;
+import org.sweetie.aichat.service.PromptEmbedder;
+
+@Configuration
+public class SemanticCacheConfig {
+
+    /**
+     * Prompt embedder selected by {@code chat.semantic-cache.embedder}; the embedding
+     * models are looked up lazily, so none is built while the cache is disabled.
+     */
+    @Bean
+    public PromptEmbedder promptEmbedder(
+            SemanticCacheProperties properties,
+            ObjectProvider<OllamaEmbeddingModel> ollamaEmbeddingModel,
+            ObjectProvider<OpenAiEmbeddingModel> openAiEmbeddingModel) {
+
+        return switch (properties.embedder()) {
+            case OLLAMA -> new EmbeddingModelPromptEmbedder(ollamaEmbeddingModel::getObject);
+            case OPENAI -> new EmbeddingModelPromptEmbedder(openAiEmbeddingModel::getObject);
+            case HASHING -> new HashingPromptEmbedder(properties.hashingDimensions());
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the semantic response cache, which answers paraphrased prompts.
+ *
+ * @param enabled whether prompts are matched by embedding similarity
+ * @param embedder how prompts are embedded
+ * @param similarityThreshold minimum cosine similarity of a hit
+ * @param maxEntries entries per provider and model before the oldest half is dropped
+ * @param ttl how long an entry stays valid after it was written
+ * @param maxConnections HNSW neighbours per node (M)
+ * @param efConstruction HNSW candidate list size while inserting
+ * @param efSearch HNSW candidate list size while searching
+ * @param recallSampleRate share of lookups also answered by exact search to measure recall
+ * @param hashingDimensions vector length of the hashing embedder
+ */
+@ConfigurationProperties(prefix = "chat.semantic-cache")
+public record SemanticCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("ollama") Embedder embedder,
+        @DefaultValue("0.92") double similarityThreshold,
+        @DefaultValue("10000") int maxEntries,
+        @DefaultValue("1h") Duration ttl,
+        @DefaultValue("16") int maxConnections,
+        @DefaultValue("200") int efConstruction,
+        @DefaultValue("64") int efSearch,
+        @DefaultValue("0.01") double recallSampleRate,
+        @DefaultValue("512") int hashingDimensions) {
+
+    public enum Embedder {
+        /** Ollama embedding model ({@code spring.ai.ollama.embedding.options.model}) */
+        OLLAMA,
+        /** OpenAI embedding model */
+        OPENAI,
+        /** Local feature hashing, no model required */
+        HASHING
+    }
+}
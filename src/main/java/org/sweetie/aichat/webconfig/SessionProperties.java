@@ -0,0 +1,56 @@
+package org.sweetie.aichat.webconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+import org.sweetie.aichat.model.LLMType;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings for server-side conversation sessions.
+ *
+ * @param enabled whether requests carrying a session id get their history replayed
+ * @param idleTimeout sessions untouched for this long are evicted
+ * @param maxSessions upper bound on the number of sessions kept
+ * @param maxHistoryTokens upper bound on the history stored and replayed per session
+ * @param reservedCompletionTokens part of the context window kept free for the reply
+ * @param defaultContextTokens context window of providers missing from {@code contextTokens}
+ * @param contextTokens context window per provider, in tokens
+ * @param store where session history is kept
+ * @param offHeapCapacity memory reserved by the off-heap store
+ * @param offHeapPageSize slab page size of the off-heap store; also the largest session it holds
+ */
+@ConfigurationProperties(prefix = "chat.sessions")
+public record SessionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("30m") Duration idleTimeout,
+        @DefaultValue("100000") long maxSessions,
+        @DefaultValue("4000") int maxHistoryTokens,
+        @DefaultValue("1024") int reservedCompletionTokens,
+        @DefaultValue("8192") int defaultContextTokens,
+        Map<LLMType, Integer> contextTokens,
+        @DefaultValue("heap") Store store,
+        @DefaultValue("256MB") DataSize offHeapCapacity,
+        @DefaultValue("1MB") DataSize offHeapPageSize) {
+
+    public enum Store {
+        /** Caffeine-backed, on the Java heap */
+        HEAP,
+        /** Slab-allocated native memory, invisible to the garbage collector */
+        OFF_HEAP
+    }
+
+    public SessionProperties {
+        contextTokens = contextTokens == null ? Map.of() : Map.copyOf(contextTokens);
+    }
+
+    /**
+     * @param llmType the AI provider type
+     * @return the provider's context window, in tokens
+     */
+    public int contextTokensFor(LLMType llmType) {
+        return contextTokens.getOrDefault(llmType, defaultContextTokens);
+    }
+}
@@ -0,0 +1,24 @@
+package org.sweetie.aichat.webconfig;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.sweetie.aichat.service.ConversationStore;
+import org.sweetie.aichat.service.InMemoryConversationStore;
+import org.sweetie.aichat.service.OffHeapConversationStore;
+
+@Configuration
+public class SessionStoreConfig {
+
+    /**
+     * Conversation store selected by {@code chat.sessions.store}. The off-heap store's
+     * native memory is freed through its inferred {@code close()} method on shutdown.
+     */
+    @Bean
+    public ConversationStore conversationStore(SessionProperties properties, MeterRegistry meterRegistry) {
+        return switch (properties.store()) {
+            case HEAP -> new InMemoryConversationStore(properties, meterRegistry);
+            case OFF_HEAP -> new OffHeapConversationStore(properties, meterRegistry);
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package org.sweetie.aichat.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.sweetie.aichat.dto.ErrorResponse;
+import org.sweetie.aichat.service.ChatMetrics;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(new ChatMetrics(registry));
+
+    @Test
+    void rateLimitGets429WithRetryAfterRoundedUpToSeconds() {
+
+        RateLimitExceededException ex = new RateLimitExceededException("Quota exhausted", Duration.ofMillis(1500));
+
+        ResponseEntity<ErrorResponse> response = handler.handleRateLimitExceeded(ex);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(429);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getBody().errorCode()).isEqualTo("RATE_LIMITED");
+    }
+
+    @Test
+    void deadlineErrorsGet504() {
+
+        ResponseEntity<ErrorResponse> deadline = handler.handleDeadlineExceeded(
+                new DeadlineExceededException(Duration.ofSeconds(1)));
+        ResponseEntity<ErrorResponse> asyncTimeout = handler.handleAsyncRequestTimeout(
+                new AsyncRequestTimeoutException());
+
+        assertThat(deadline.getStatusCode().value()).isEqualTo(504);
+        assertThat(deadline.getBody().errorCode()).isEqualTo("DEADLINE_EXCEEDED");
+        assertThat(asyncTimeout.getStatusCode().value()).isEqualTo(504);
+        assertThat(asyncTimeout.getBody().errorCode()).isEqualTo("DEADLINE_EXCEEDED");
+    }
+
+    @Test
+    void matchesErrorResponsesForEveryMappedException() {
+
+        Exception[] failures = {
+                new AIServiceException("CIRCUIT_OPEN", "Circuit open"),
+                new DeadlineExceededException(Duration.ofSeconds(1)),
+                new RateLimitExceededException("Quota exhausted", Duration.ofSeconds(1)),
+                new AsyncRequestTimeoutException(),
+                new IllegalArgumentException("Bad llm"),
+                new IllegalStateException("Boom")
+        };
+
+        for (Exception ex : failures) {
+            ResponseEntity<ErrorResponse> response = handle(ex);
+            ErrorResponse expected = ErrorResponses.of(ex);
+            assertThat(response.getStatusCode().value()).as(ex.toString()).isEqualTo(expected.status());
+            assertThat(response.getBody().errorCode()).as(ex.toString()).isEqualTo(expected.errorCode());
+            assertThat(response.getBody().message()).as(ex.toString()).isEqualTo(expected.message());
+        }
+    }
+
+    @Test
+    void countsErrorsByCode() {
+
+        handler.handleAIServiceException(new AIServiceException("CIRCUIT_OPEN", "Circuit open"));
+
+        assertThat(registry.get("chat.errors").tag("errorCode", "CIRCUIT_OPEN").counter().count()).isEqualTo(1);
+    }
+
+    /**
+     * Dispatches the way Spring does, to the handler for the most specific exception type.
+     */
+    private ResponseEntity<ErrorResponse> handle(Exception ex) {
+        return switch (ex) {
+            case DeadlineExceededException e -> handler.handleDeadlineExceeded(e);
+            case RateLimitExceededException e -> handler.handleRateLimitExceeded(e);
+            case AIServiceException e -> handler.handleAIServiceException(e);
+            case AsyncRequestTimeoutException e -> handler.handleAsyncRequestTimeout(e);
+            case IllegalArgumentException e -> handler.handleBadRequest(e);
+            default -> handler.handleGenericException(ex);
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package org.sweetie.aichat.service;
+
+import org.junit.jupiter.api.Test;
+import org.sweetie.aichat.webconfig.ConcurrencyLimitProperties;
+import org.sweetie.aichat.webconfig.ConcurrencyLimitProperties.Algorithm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final AdaptiveConcurrencyLimit.Signal TTFT = AdaptiveConcurrencyLimit.Signal.TIME_TO_FIRST_TOKEN;
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void startsAtInitialLimitWithinBounds() {
+
+        assertThat(limit(Algorithm.AIMD, 1, 10, 100).limit()).isEqualTo(10);
+        assertThat(limit(Algorithm.AIMD, 1, 10, 4).limit()).isEqualTo(4);
+        assertThat(limit(Algorithm.AIMD, 5, 2, 100).limit()).isEqualTo(5);
+        // A minimum above the maximum gives way to the maximum
+        assertThat(limit(Algorithm.AIMD, 8, 10, 4).limit()).isEqualTo(4);
+    }
+
+    @Test
+    void aimdAddsOnePerSuccessWhileSlotsAreInUse() {
+
+        AdaptiveConcurrencyLimit limit = limit(Algorithm.AIMD, 1, 10, 100);
+
+        assertThat(limit.onSuccess(TTFT, 100 * MILLIS, 10)).isEqualTo(11);
+        assertThat(limit.onSuccess(TTFT, 100 * MILLIS, 6)).isEqualTo(12);
+    }
+
+    @Test
+    void ignoresSuccessesWhileMostSlotsAreIdle() {
+
+        AdaptiveConcurrencyLimit limit = limit(Algorithm.AIMD, 1, 10, 100);
+
+        assertThat(limit.onSuccess(TTFT, 100 * MILLIS, 4)).isEqualTo(10);
+    }
+
+    @Test
+    void overloadMultipliesByBackoffRatioDownToMinimum() {
+
+        AdaptiveConcurrencyLimit limit = limit(Algorithm.AIMD, 3, 10, 100);
+
+        assertThat(limit.onOverload()).isEqualTo(5);
+        assertThat(limit.onOverload()).isEqualTo(3);
+        assertThat(limit.onOverload()).isEqualTo(3);
+    }
+
+    @Test
+    void neverGrowsPastMaximum() {
+
+        AdaptiveConcurrencyLimit limit = limit(Algorithm.AIMD, 1, 10, 12);
+        for (int i = 0; i < 10; i++) {
+            limit.onSuccess(TTFT, 100 * MILLIS, 12);
+        }
+
+        assertThat(limit.limit()).isEqualTo(12);
+    }
+
+    @Test
+    void vegasGrowsWhileLatencyStaysAtBaseline() {
+
+        AdaptiveConcurrencyLimit limit = limit(Algorithm.VEGAS, 1, 10, 100);
+
+        // The first sample only sets the baseline
+        assertThat(limit.onSuccess(TTFT, 100 * MILLIS, 10)).isEqualTo(10);
+        assertThat(limit.onSuccess(TTFT, 100 * MILLIS, 10)).isEqualTo(13);
+    }
+
+    @Test
+    void vegasShrinksWhenLatencyShowsALongQueue() {
+
+        AdaptiveConcurrencyLimit limit = limit(Algorithm.VEGAS, 1, 10, 100);
+        limit.onSuccess(TTFT, 100 * MILLIS, 10);
+
+        // Ten times the baseline: about nine of ten requests are queued at the provider
+        assertThat(limit.onSuccess(TTFT, 1000 * MILLIS, 10)).isEqualTo(9);
+    }
+
+    @Test
+    void vegasHoldsWhileTheQueueIsModerate() {
+
+        AdaptiveConcurrencyLimit limit = limit(Algorithm.VEGAS, 1, 10, 100);
+        limit.onSuccess(TTFT, 100 * MILLIS, 10);
+
+        // Queue estimate ceil(10 * (1 - 100 / 200)) = 5, between the grow and shrink thresholds
+        assertThat(limit.onSuccess(TTFT, 200 * MILLIS, 10)).isEqualTo(10);
+    }
+
+    @Test
+    void vegasComparesEachSignalWithItsOwnBaseline() {
+
+        AdaptiveConcurrencyLimit limit = limit(Algorithm.VEGAS, 1, 10, 100);
+        limit.onSuccess(AdaptiveConcurrencyLimit.Signal.LATENCY_PER_TOKEN, MILLIS / 50, 10);
+
+        // Far above the per-token baseline, but the first time-to-first-token sample: sets its baseline
+        assertThat(limit.onSuccess(TTFT, 500 * MILLIS, 10)).isEqualTo(10);
+        assertThat(limit.onSuccess(TTFT, 500 * MILLIS, 10)).isEqualTo(13);
+    }
+
+    private static AdaptiveConcurrencyLimit limit(Algorithm algorithm, int minLimit, int initialLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimit(
+                new ConcurrencyLimitProperties(true, algorithm, minLimit, initialLimit, 0.5, 2), maxLimit);
+    }
+}
@@ -0,0 +1,134 @@
+package org.sweetie.aichat.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.RoutingProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AdaptiveRouterTest {
+
+    private static final List<LLMType> CANDIDATES = List.of(LLMType.OPENAI, LLMType.GEMINI, LLMType.ANTHROPIC);
+    private static final long MILLIS = 1_000_000;
+
+    private final ProviderLatencyTracker tracker = new ProviderLatencyTracker(routing(0));
+
+    @Test
+    void spreadsRoundRobinUntilAnyCandidateHasSamples() {
+
+        AdaptiveRouter router = router(0, CANDIDATES);
+
+        List<LLMType> picks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            picks.add(router.selectFastest().orElseThrow());
+        }
+
+        assertThat(picks).containsExactly(
+                LLMType.OPENAI, LLMType.GEMINI, LLMType.ANTHROPIC,
+                LLMType.OPENAI, LLMType.GEMINI, LLMType.ANTHROPIC);
+    }
+
+    @Test
+    void picksLowestSmoothedLatencyAmongHealthyCandidates() {
+
+        AdaptiveRouter router = router(0, CANDIDATES);
+        record(LLMType.OPENAI, 300, 10, true);
+        record(LLMType.GEMINI, 100, 10, true);
+        record(LLMType.ANTHROPIC, 200, 10, true);
+
+        assertThat(router.selectFastest()).contains(LLMType.GEMINI);
+    }
+
+    @Test
+    void skipsCandidatesOverMaxErrorRate() {
+
+        AdaptiveRouter router = router(0, CANDIDATES);
+        record(LLMType.OPENAI, 300, 10, true);
+        record(LLMType.GEMINI, 100, 10, false);
+        record(LLMType.ANTHROPIC, 200, 10, true);
+
+        assertThat(router.selectFastest()).contains(LLMType.ANTHROPIC);
+    }
+
+    @Test
+    void returnsEmptyWhenEveryCandidateIsUnhealthy() {
+
+        AdaptiveRouter router = router(0, CANDIDATES);
+        for (LLMType candidate : CANDIDATES) {
+            record(candidate, 100, 10, false);
+        }
+
+        assertThat(router.selectFastest()).isEmpty();
+    }
+
+    @Test
+    void probesCandidateWithoutSamplesOncePerInterval() {
+
+        AdaptiveRouter router = router(0, CANDIDATES);
+        record(LLMType.OPENAI, 100, 10, true);
+        record(LLMType.GEMINI, 200, 10, true);
+
+        assertThat(router.selectFastest()).contains(LLMType.ANTHROPIC);
+        assertThat(router.selectFastest()).contains(LLMType.OPENAI);
+        assertThat(router.selectFastest()).contains(LLMType.OPENAI);
+    }
+
+    @Test
+    void ignoresCandidatesThatAreNotEnabled() {
+
+        AdaptiveRouter router = router(0, List.of(LLMType.GEMINI, LLMType.ANTHROPIC));
+        record(LLMType.OPENAI, 1, 10, true);
+        record(LLMType.GEMINI, 200, 10, true);
+        record(LLMType.ANTHROPIC, 100, 10, true);
+
+        assertThat(router.selectFastest()).contains(LLMType.ANTHROPIC);
+    }
+
+    @Test
+    void returnsEmptyWithoutEnabledCandidates() {
+
+        assertThat(router(0, List.of()).selectFastest()).isEmpty();
+    }
+
+    @Test
+    void explorationSendsTrafficToUnhealthyCandidates() {
+
+        AdaptiveRouter router = router(1, CANDIDATES);
+        for (LLMType candidate : CANDIDATES) {
+            record(candidate, 100, 10, false);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            Optional<LLMType> pick = router.selectFastest();
+            assertThat(pick).isPresent();
+            assertThat(CANDIDATES).contains(pick.get());
+        }
+    }
+
+    private AdaptiveRouter router(double explorationRatio, List<LLMType> enabled) {
+        Map<LLMType, ChatClient> clients = new HashMap<>();
+        enabled.forEach(llmType -> clients.put(llmType, mock(ChatClient.class)));
+        return new AdaptiveRouter(tracker, routing(explorationRatio),
+                new ChatClientRegistry(clients, Map.of()));
+    }
+
+    private void record(LLMType llmType, long latencyMillis, int calls, boolean success) {
+        for (int i = 0; i < calls; i++) {
+            tracker.record(llmType, latencyMillis * MILLIS, success);
+        }
+    }
+
+    private static RoutingProperties routing(double explorationRatio) {
+        return new RoutingProperties(RoutingProperties.Mode.AUTO, CANDIDATES, 0.25, explorationRatio, 0.2, 256,
+                Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,217 @@
+package org.sweetie.aichat.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.sweetie.aichat.model.Priority;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AdmissionQueueTest {
+
+    private static final long LONG_WAIT = TimeUnit.SECONDS.toNanos(30);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<String> granted = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void grantsFreeSlotsWithoutWaiting() throws InterruptedException {
+
+        AdmissionQueue queue = new AdmissionQueue(2, 1);
+
+        assertThat(queue.acquire(Priority.STANDARD, "a", 1, 0)).isEqualTo(AdmissionQueue.Outcome.GRANTED);
+        assertThat(queue.acquire(Priority.STANDARD, "a", 1, 0)).isEqualTo(AdmissionQueue.Outcome.GRANTED);
+        assertThat(queue.acquire(Priority.STANDARD, "a", 1, 0)).isEqualTo(AdmissionQueue.Outcome.TIMED_OUT);
+        assertThat(queue.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void shedsRequestsBeyondTheQueueBound() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 1);
+        queue.acquire(Priority.STANDARD, "a", 1, 0);
+        waitInLine(queue, Priority.STANDARD, "a", 1);
+
+        assertThat(queue.acquire(Priority.STANDARD, "b", 1, LONG_WAIT)).isEqualTo(AdmissionQueue.Outcome.QUEUE_FULL);
+    }
+
+    @Test
+    void fullQueueShedsLowerClassForHigherArrival() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 2);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+        Future<AdmissionQueue.Outcome> older = waitInLine(queue, Priority.BATCH, "batch", 1);
+        Future<AdmissionQueue.Outcome> newest = waitInLine(queue, Priority.BATCH, "batch", 1);
+
+        Future<AdmissionQueue.Outcome> interactive = waitInLine(queue, Priority.INTERACTIVE, "interactive", 1);
+
+        assertThat(newest.get(5, TimeUnit.SECONDS)).isEqualTo(AdmissionQueue.Outcome.QUEUE_FULL);
+        assertThat(older).isNotDone();
+        releaseAll(queue, 1);
+        assertThat(interactive.get(5, TimeUnit.SECONDS)).isEqualTo(AdmissionQueue.Outcome.GRANTED);
+        assertThat(granted).containsExactly("interactive");
+    }
+
+    @Test
+    void fullQueueTurnsAwayArrivalsWithNoLowerClassWaiting() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 1);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+        waitInLine(queue, Priority.INTERACTIVE, "interactive", 1);
+
+        assertThat(queue.acquire(Priority.STANDARD, "standard", 1, LONG_WAIT))
+                .isEqualTo(AdmissionQueue.Outcome.QUEUE_FULL);
+        assertThat(queue.acquire(Priority.BATCH, "batch", 1, LONG_WAIT)).isEqualTo(AdmissionQueue.Outcome.QUEUE_FULL);
+    }
+
+    @Test
+    void loweringTheBoundShedsLowestClassesFirst() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 10);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+        Future<AdmissionQueue.Outcome> interactive = waitInLine(queue, Priority.INTERACTIVE, "interactive", 1);
+        Future<AdmissionQueue.Outcome> batch = waitInLine(queue, Priority.BATCH, "batch", 1);
+        Future<AdmissionQueue.Outcome> standard = waitInLine(queue, Priority.STANDARD, "standard", 1);
+
+        queue.resize(1, 1);
+
+        assertThat(batch.get(5, TimeUnit.SECONDS)).isEqualTo(AdmissionQueue.Outcome.QUEUE_FULL);
+        assertThat(standard.get(5, TimeUnit.SECONDS)).isEqualTo(AdmissionQueue.Outcome.QUEUE_FULL);
+        assertThat(interactive).isNotDone();
+        assertThat(queue.queued(Priority.INTERACTIVE)).isEqualTo(1);
+    }
+
+    @Test
+    void servesHigherPriorityClassesFirst() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 10);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+        waitInLine(queue, Priority.BATCH, "batch", 1);
+        waitInLine(queue, Priority.STANDARD, "standard", 1);
+        waitInLine(queue, Priority.INTERACTIVE, "interactive", 1);
+
+        releaseAll(queue, 3);
+
+        assertThat(granted).containsExactly("interactive", "standard", "batch");
+    }
+
+    @Test
+    void sharesSlotsFairlyBetweenTenants() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 10);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+        for (int i = 0; i < 3; i++) {
+            waitInLine(queue, Priority.STANDARD, "flood", 1);
+        }
+        waitInLine(queue, Priority.STANDARD, "quiet", 1);
+
+        releaseAll(queue, 4);
+
+        // The quiet tenant's only request overtakes the flooding tenant's backlog
+        assertThat(granted).containsExactly("flood", "quiet", "flood", "flood");
+    }
+
+    @Test
+    void splitsSlotsByTenantWeight() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 10);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+        for (int i = 0; i < 3; i++) {
+            waitInLine(queue, Priority.STANDARD, "light", 1);
+        }
+        for (int i = 0; i < 3; i++) {
+            waitInLine(queue, Priority.STANDARD, "heavy", 2);
+        }
+
+        releaseAll(queue, 6);
+
+        assertThat(granted).containsExactly("heavy", "light", "heavy", "heavy", "light", "light");
+    }
+
+    @Test
+    void removesWaiterThatTimesOut() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 10);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+
+        AdmissionQueue.Outcome outcome = queue.acquire(Priority.STANDARD, "a", 1, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertThat(outcome).isEqualTo(AdmissionQueue.Outcome.TIMED_OUT);
+        assertThat(queue.queued(Priority.STANDARD)).isZero();
+        queue.release();
+        assertThat(queue.inFlight()).isZero();
+    }
+
+    @Test
+    void removesWaiterThatIsInterrupted() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 10);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+        Future<AdmissionQueue.Outcome> waiter = waitInLine(queue, Priority.STANDARD, "a", 1);
+
+        waiter.cancel(true);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> queue.queued(Priority.STANDARD) == 0);
+        queue.release();
+        assertThat(queue.inFlight()).isZero();
+    }
+
+    @Test
+    void timedOutWaiterDoesNotCountAgainstItsTenant() throws Exception {
+
+        AdmissionQueue queue = new AdmissionQueue(1, 10);
+        queue.acquire(Priority.STANDARD, "holder", 1, 0);
+        waitInLine(queue, Priority.STANDARD, "other", 1);
+        queue.acquire(Priority.STANDARD, "impatient", 1, TimeUnit.MILLISECONDS.toNanos(20));
+        waitInLine(queue, Priority.STANDARD, "impatient", 1);
+        waitInLine(queue, Priority.STANDARD, "late", 1);
+
+        releaseAll(queue, 3);
+
+        // Had the timed-out request kept its tag, "impatient" would now be served after "late"
+        assertThat(granted).containsExactly("other", "impatient", "late");
+    }
+
+    /**
+     * Starts a request that waits for a slot and returns once it is in line.
+     */
+    private Future<AdmissionQueue.Outcome> waitInLine(AdmissionQueue queue, Priority priority, String tenant,
+                                                      int weight) {
+
+        int before = queue.queued(priority);
+        Future<AdmissionQueue.Outcome> outcome = executor.submit(() -> {
+            AdmissionQueue.Outcome result = queue.acquire(priority, tenant, weight, LONG_WAIT);
+            if (result == AdmissionQueue.Outcome.GRANTED) {
+                granted.add(tenant);
+            }
+            return result;
+        });
+        await().atMost(Duration.ofSeconds(5)).until(() -> queue.queued(priority) > before);
+        return outcome;
+    }
+
+    /**
+     * Releases one slot at a time, each time waiting for the next waiter to take it.
+     */
+    private void releaseAll(AdmissionQueue queue, int waiters) {
+
+        for (int i = 0; i < waiters; i++) {
+            int before = granted.size();
+            queue.release();
+            await().atMost(Duration.ofSeconds(5)).until(() -> granted.size() > before);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.sweetie.aichat.dto.BatchChatResult;
+import org.sweetie.aichat.dto.ChatRequest;
+import org.sweetie.aichat.dto.ChatResponse;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchChatServiceTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    private final ChatService chatService = mock(ChatService.class);
+    private final BatchChatService batch = new BatchChatService(chatService,
+            new ChatMetrics(new SimpleMeterRegistry()), validatorFactory.getValidator(), executor, 4, 10);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        validatorFactory.close();
+    }
+
+    @Test
+    void invalidItemsFailOnTheirOwn() {
+
+        when(chatService.processChat(any(), any())).thenReturn(new ChatResponse("Hi", "OPENAI", "Hello", 0L));
+
+        List<BatchChatResult> results = run(
+                new ChatRequest("Hello", null),
+                new ChatRequest(" ", null),
+                new ChatRequest("Hello", null, null, "s".repeat(129), null),
+                null);
+
+        assertThat(results.get(0).error()).isNull();
+        assertThat(results.get(0).response().response()).isEqualTo("Hi");
+        assertThat(results.get(1).error().errorCode()).isEqualTo("VALIDATION_FAILED");
+        assertThat(results.get(1).error().message()).isEqualTo("message: Message cannot be empty");
+        assertThat(results.get(2).error().message())
+                .isEqualTo("sessionId: Session id cannot be longer than 128 characters");
+        assertThat(results.get(3).error().message()).isEqualTo("Request cannot be null");
+    }
+
+    @Test
+    void reportsEveryViolationOfAnItem() {
+
+        List<BatchChatResult> results = run(new ChatRequest("", null, null, "s".repeat(129), -1L));
+
+        assertThat(results.getFirst().error().status()).isEqualTo(400);
+        assertThat(results.getFirst().error().message()).isEqualTo("message: Message cannot be empty; "
+                + "sessionId: Session id cannot be longer than 128 characters; "
+                + "timeoutMs: Timeout must be a positive number of milliseconds");
+        verify(chatService, never()).processChat(any(), any());
+    }
+
+    private List<BatchChatResult> run(ChatRequest... requests) {
+        return batch.processBatch(Arrays.asList(requests), null)
+                .collectSortedList(Comparator.comparingInt(BatchChatResult::index))
+                .block();
+    }
+}
@@ -0,0 +1,170 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.sweetie.aichat.dto.ChatRequest;
+import org.sweetie.aichat.dto.ErrorResponse;
+import org.sweetie.aichat.exception.DeadlineExceededException;
+import org.sweetie.aichat.exception.ErrorResponses;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.model.Priority;
+import org.sweetie.aichat.webconfig.CircuitBreakerProperties;
+import org.sweetie.aichat.webconfig.DeadlineProperties;
+import org.sweetie.aichat.webconfig.HedgingProperties;
+import org.sweetie.aichat.webconfig.RateLimitProperties;
+import org.sweetie.aichat.webconfig.RoutingProperties;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Deadline handling of the chat path against a provider that never answers.
+ */
+class ChatServiceTest {
+
+    private static final LLMType LLM = LLMType.OPENAI;
+    private static final Admission ADMISSION = new Admission(Priority.INTERACTIVE, null);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ChatClient chatClient = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+    private final ProviderCircuitBreaker circuitBreaker = new ProviderCircuitBreaker(new CircuitBreakerProperties(
+            true, 10, 10, 0.5, Duration.ofSeconds(20), 0.8, Duration.ofSeconds(30), 3, Map.of()));
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        when(chatClient.prompt().messages(anyList()).user(anyString()).call().chatResponse()).thenAnswer(call -> {
+            started.countDown();
+            try {
+                Thread.sleep(Duration.ofMinutes(1));
+                return null;
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+                throw ex;
+            }
+        });
+        when(chatClient.prompt().messages(anyList()).user(anyString()).stream().chatResponse())
+                .thenReturn(Flux.never());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void slowCallIsCutOffAtRequestedTimeoutAsGatewayTimeout() throws Exception {
+
+        ChatService chatService = chatService(Map.of());
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> chatService.processChat(request(100L), ADMISSION))
+                .isInstanceOfSatisfying(DeadlineExceededException.class, ex -> {
+                    assertThat(ex.getBudget()).isEqualTo(Duration.ofMillis(100));
+                    ErrorResponse error = ErrorResponses.of(ex);
+                    assertThat(error.status()).isEqualTo(504);
+                    assertThat(error.errorCode()).isEqualTo("DEADLINE_EXCEEDED");
+                });
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        // The abandoned call is interrupted and counted as a provider failure
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        await().atMost(Duration.ofSeconds(5)).until(() -> circuitBreaker.snapshot(LLM).bufferedCalls() == 1);
+    }
+
+    @Test
+    void requestedTimeoutIsCappedForProvider() {
+
+        ChatService chatService = chatService(Map.of(LLM, Duration.ofMillis(100)));
+
+        assertThatThrownBy(() -> chatService.processChat(request(60_000L), ADMISSION))
+                .isInstanceOfSatisfying(DeadlineExceededException.class,
+                        ex -> assertThat(ex.getBudget()).isEqualTo(Duration.ofMillis(100)));
+    }
+
+    @Test
+    void cancelledCallIsNotCountedAgainstProvider() throws Exception {
+
+        ChatService chatService = chatService(Map.of());
+
+        Disposable call = chatService.processChatAsync(request(60_000L), ADMISSION).subscribe(response -> { }, ex -> { });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        call.dispose();
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(circuitBreaker.snapshot(LLM).bufferedCalls()).isZero();
+    }
+
+    @Test
+    void streamEndsWithDeadlineExceeded() {
+
+        ChatService chatService = chatService(Map.of());
+
+        assertThatThrownBy(() -> chatService.streamChat(request(100L), ADMISSION).collectList().block())
+                .isInstanceOf(DeadlineExceededException.class);
+        // The provider stream is cancelled, not left running, and counted as a provider failure
+        await().atMost(Duration.ofSeconds(5)).until(() -> circuitBreaker.snapshot(LLM).bufferedCalls() == 1);
+    }
+
+    @Test
+    void reactiveRequestFailsWithDeadlineExceeded() {
+
+        ChatService chatService = chatService(Map.of());
+
+        assertThatThrownBy(() -> chatService.processChatReactive(request(100L), ADMISSION).block())
+                .isInstanceOf(DeadlineExceededException.class);
+    }
+
+    private ChatService chatService(Map<LLMType, Duration> maxTimeouts) {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RoutingProperties routing = new RoutingProperties(
+                RoutingProperties.Mode.STATIC, List.of(LLM), 0.25, 0, 0.2, 256, Duration.ofSeconds(1));
+        ChatClientRegistry chatClients = new ChatClientRegistry(Map.of(LLM, chatClient), Map.of(LLM, "gpt-4o"));
+        ProviderLatencyTracker latencyTracker = new ProviderLatencyTracker(routing);
+
+        return new ChatService(
+                chatClients,
+                LLM.getValue(),
+                mock(ProviderBulkhead.class),
+                mock(ResponseCache.class),
+                mock(SemanticCache.class),
+                new RequestCoalescer(true, registry),
+                routing,
+                new AdaptiveRouter(latencyTracker, routing, chatClients),
+                latencyTracker,
+                new HedgingExecutor(new HedgingProperties(false, Duration.ofSeconds(2), false, 20, Map.of()),
+                        latencyTracker, chatClients, executor, registry),
+                circuitBreaker,
+                new ProviderRateLimiter(new RateLimitProperties(false, Duration.ZERO, 512, Map.of())),
+                new DeadlineProperties(Duration.ofSeconds(60), Duration.ofSeconds(120), maxTimeouts),
+                mock(ConversationHistory.class),
+                new ChatMetrics(registry),
+                executor);
+    }
+
+    private static ChatRequest request(Long timeoutMs) {
+        // Opting out of the cache keeps the response cache and coalescing out of the way
+        return new ChatRequest("Hello", LLM.getValue(), false, null, timeoutMs);
+    }
+}
@@ -0,0 +1,140 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.util.unit.DataSize;
+import org.sweetie.aichat.model.ConversationTurn;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.SessionProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversationHistoryTest {
+
+    private static final String SESSION = "session-1";
+    // 40 characters, 10 estimated tokens
+    private static final String MESSAGE = "m".repeat(40);
+
+    @Test
+    void statelessRequestsHaveNoHistory() {
+
+        ConversationHistory history = history(true, 4_000, Map.of());
+
+        history.record(null, MESSAGE, "Hi");
+
+        assertThat(history.window(null, LLMType.OPENAI, MESSAGE)).isEmpty();
+    }
+
+    @Test
+    void replaysTurnsOldestFirst() {
+
+        ConversationHistory history = history(true, 4_000, Map.of());
+        history.record(SESSION, "first", "one");
+        history.record(SESSION, "second", "two");
+
+        List<ConversationTurn> window = history.window(SESSION, LLMType.OPENAI, MESSAGE);
+        List<Message> messages = ConversationHistory.toMessages(window);
+
+        assertThat(window).extracting(ConversationTurn::userMessage).containsExactly("first", "second");
+        assertThat(messages).hasSize(4);
+        assertThat(messages.get(0)).isInstanceOf(UserMessage.class);
+        assertThat(messages.get(1)).isInstanceOf(AssistantMessage.class);
+        assertThat(messages.get(3).getText()).isEqualTo("two");
+    }
+
+    @Test
+    void windowKeepsNewestTurnsThatFitProviderContext() {
+
+        // OpenAI: 100 token context - 40 reserved - 10 for the message leaves 50 for history
+        ConversationHistory history = history(true, 4_000, Map.of(LLMType.OPENAI, 100));
+        recordTurns(history, 5);
+
+        assertThat(history.window(SESSION, LLMType.OPENAI, MESSAGE))
+                .extracting(ConversationTurn::userMessage)
+                .containsExactly(turn(3), turn(4));
+        assertThat(history.window(SESSION, LLMType.GEMINI, MESSAGE)).hasSize(5);
+    }
+
+    @Test
+    void windowIsCappedAtMaxHistoryTokens() {
+
+        ConversationHistory history = history(true, 60, Map.of());
+        recordTurns(history, 5);
+
+        // Each turn is 20 tokens
+        assertThat(history.window(SESSION, LLMType.OPENAI, MESSAGE))
+                .extracting(ConversationTurn::userMessage)
+                .containsExactly(turn(2), turn(3), turn(4));
+    }
+
+    @Test
+    void messageFillingTheContextLeavesNoRoomForHistory() {
+
+        ConversationHistory history = history(true, 4_000, Map.of(LLMType.OPENAI, 100));
+        recordTurns(history, 2);
+
+        assertThat(history.window(SESSION, LLMType.OPENAI, "m".repeat(400))).isEmpty();
+    }
+
+    @Test
+    void endedSessionStartsOver() {
+
+        ConversationHistory history = history(true, 4_000, Map.of());
+        recordTurns(history, 2);
+
+        history.end(SESSION);
+
+        assertThat(history.window(SESSION, LLMType.OPENAI, MESSAGE)).isEmpty();
+    }
+
+    @Test
+    void disabledSessionsKeepNothing() {
+
+        ConversationHistory history = history(false, 4_000, Map.of());
+
+        recordTurns(history, 2);
+
+        assertThat(history.window(SESSION, LLMType.OPENAI, MESSAGE)).isEmpty();
+    }
+
+    @Test
+    void promptEstimateCountsHistoryAndMessage() {
+
+        List<Message> messages = ConversationHistory.toMessages(
+                List.of(new ConversationTurn("u".repeat(40), "a".repeat(40), 20)));
+
+        assertThat(ConversationHistory.estimatePromptTokens(messages, MESSAGE)).isEqualTo(30);
+    }
+
+    private static ConversationHistory history(boolean enabled, int maxHistoryTokens,
+                                               Map<LLMType, Integer> contextTokens) {
+        SessionProperties properties = new SessionProperties(enabled, Duration.ofMinutes(30), 1_000,
+                maxHistoryTokens, 40, 8_192, contextTokens, SessionProperties.Store.HEAP,
+                DataSize.ofMegabytes(1), DataSize.ofKilobytes(64));
+        return new ConversationHistory(new InMemoryConversationStore(properties, new SimpleMeterRegistry()),
+                properties);
+    }
+
+    /**
+     * Records turns of 20 tokens each.
+     */
+    private static void recordTurns(ConversationHistory history, int turns) {
+        for (int i = 0; i < turns; i++) {
+            history.record(SESSION, turn(i), "r".repeat(40));
+        }
+    }
+
+    /**
+     * @return the message of turn i, 40 characters long
+     */
+    private static String turn(int i) {
+        return String.format("%-40s", "turn " + i);
+    }
+}
@@ -0,0 +1,188 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.sweetie.aichat.exception.AIServiceException;
+import org.sweetie.aichat.exception.DeadlineExceededException;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.HedgingProperties;
+import org.sweetie.aichat.webconfig.RoutingProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+class HedgingExecutorTest {
+
+    private static final LLMType PRIMARY = LLMType.OPENAI;
+    private static final LLMType ALTERNATE = LLMType.GEMINI;
+    private static final Deadline NO_RUSH = Deadline.after(Duration.ofSeconds(30));
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Set<LLMType> interrupted = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch never = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fastPrimaryIsNotHedged() {
+
+        CompletionResult result = hedging(true).execute(PRIMARY, NO_RUSH, this::answer);
+
+        assertThat(result.llmType()).isEqualTo(PRIMARY);
+        assertThat(registry.find("chat.hedge.fired").counter()).isNull();
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelledWhenHedgeWins() {
+
+        CompletionResult result = hedging(true).execute(PRIMARY, NO_RUSH,
+                llm -> llm == PRIMARY ? hang(llm) : answer(llm));
+
+        assertThat(result.llmType()).isEqualTo(ALTERNATE);
+        assertThat(registry.get("chat.hedge.fired").tag("llm", "openai").counter().count()).isEqualTo(1);
+        assertThat(registry.get("chat.hedge.won").tag("llm", "gemini").counter().count()).isEqualTo(1);
+        await().atMost(Duration.ofSeconds(5)).until(() -> interrupted.contains(PRIMARY));
+    }
+
+    @Test
+    void hedgeIsCancelledWhenPrimaryWins() {
+
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+
+        CompletionResult result = hedging(true).execute(PRIMARY, NO_RUSH, llm -> {
+            if (llm == ALTERNATE) {
+                hedgeStarted.countDown();
+                return hang(llm);
+            }
+            waitFor(hedgeStarted);
+            return answer(llm);
+        });
+
+        assertThat(result.llmType()).isEqualTo(PRIMARY);
+        assertThat(registry.find("chat.hedge.won").counter()).isNull();
+        await().atMost(Duration.ofSeconds(5)).until(() -> interrupted.contains(ALTERNATE));
+    }
+
+    @Test
+    void failedPrimaryFallsBackToHedge() {
+
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+
+        CompletionResult result = hedging(true).execute(PRIMARY, NO_RUSH, llm -> {
+            if (llm == ALTERNATE) {
+                hedgeStarted.countDown();
+                return answer(llm);
+            }
+            waitFor(hedgeStarted);
+            throw new AIServiceException("Primary failed");
+        });
+
+        assertThat(result.llmType()).isEqualTo(ALTERNATE);
+    }
+
+    @Test
+    void primaryFailingBeforeHedgeDelayIsRethrown() {
+
+        assertThatThrownBy(() -> hedging(true).execute(PRIMARY, NO_RUSH, llm -> {
+            throw new AIServiceException("CIRCUIT_OPEN", llm + " failed");
+        })).isInstanceOf(AIServiceException.class).hasMessage("OPENAI failed");
+
+        assertThat(registry.find("chat.hedge.fired").counter()).isNull();
+    }
+
+    @Test
+    void cancelsEveryCallWhenDeadlinePasses() {
+
+        Deadline deadline = Deadline.after(Duration.ofMillis(200));
+
+        assertThatThrownBy(() -> hedging(true).execute(PRIMARY, deadline, this::hang))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> interrupted.containsAll(List.of(PRIMARY, ALTERNATE)));
+    }
+
+    @Test
+    void doesNotHedgeWhenDelayOutlastsDeadline() {
+
+        Deadline deadline = Deadline.after(Duration.ofMillis(30));
+
+        assertThatThrownBy(() -> hedging(true).execute(PRIMARY, deadline, this::hang))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(registry.find("chat.hedge.fired").counter()).isNull();
+        await().atMost(Duration.ofSeconds(5)).until(() -> interrupted.contains(PRIMARY));
+        assertThat(interrupted).doesNotContain(ALTERNATE);
+    }
+
+    @Test
+    void doesNotHedgeToDisabledAlternate() {
+
+        HedgingExecutor hedging = hedging(Map.of(PRIMARY, mock(ChatClient.class)));
+
+        assertThatThrownBy(() -> hedging.execute(PRIMARY, Deadline.after(Duration.ofMillis(200)), this::hang))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(registry.find("chat.hedge.fired").counter()).isNull();
+    }
+
+    /**
+     * Hedges from the primary to the alternate after a fixed 50 ms.
+     */
+    private HedgingExecutor hedging(boolean alternateEnabled) {
+        return hedging(alternateEnabled
+                ? Map.of(PRIMARY, mock(ChatClient.class), ALTERNATE, mock(ChatClient.class))
+                : Map.of(PRIMARY, mock(ChatClient.class)));
+    }
+
+    private HedgingExecutor hedging(Map<LLMType, ChatClient> enabled) {
+        HedgingProperties properties = new HedgingProperties(
+                true, Duration.ofMillis(50), false, 20, Map.of(PRIMARY, ALTERNATE));
+        RoutingProperties routing = new RoutingProperties(
+                RoutingProperties.Mode.STATIC, List.of(), 0.25, 0.05, 0.2, 256, Duration.ofSeconds(1));
+        return new HedgingExecutor(properties, new ProviderLatencyTracker(routing),
+                new ChatClientRegistry(enabled, Map.of()), executor, registry);
+    }
+
+    private CompletionResult answer(LLMType llm) {
+        return new CompletionResult("Answer from " + llm, llm, 10, 10);
+    }
+
+    /**
+     * Blocks until interrupted, recording the interruption.
+     */
+    private CompletionResult hang(LLMType llm) {
+        try {
+            never.await();
+            throw new IllegalStateException("Not reached");
+        } catch (InterruptedException ex) {
+            interrupted.add(llm);
+            throw new AIServiceException("REQUEST_CANCELLED", "Cancelled", ex);
+        }
+    }
+
+    private static void waitFor(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AIServiceException("REQUEST_CANCELLED", "Cancelled", ex);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.sweetie.aichat.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void searchRecallMatchesExactSearch() {
+
+        HnswIndex<Integer> index = new HnswIndex<>(DIMENSIONS, 16, 100);
+        for (int i = 0; i < 2000; i++) {
+            index.add(randomUnitVector(), i);
+        }
+
+        int queries = 200;
+        int hits = 0;
+        for (int i = 0; i < queries; i++) {
+            float[] query = randomUnitVector();
+            List<HnswIndex.Match<Integer>> found = index.search(query, 1, 64);
+            if (!found.isEmpty() && found.getFirst().value().equals(index.exactNearest(query).value())) {
+                hits++;
+            }
+        }
+
+        assertThat((double) hits / queries).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void findsStoredVectorsThemselves() {
+
+        HnswIndex<Integer> index = new HnswIndex<>(DIMENSIONS, 16, 100);
+        float[][] vectors = new float[500][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnitVector();
+            index.add(vectors[i], i);
+        }
+
+        for (int i = 0; i < vectors.length; i += 25) {
+            HnswIndex.Match<Integer> match = index.search(vectors[i], 1, 32).getFirst();
+            assertThat(match.value()).isEqualTo(i);
+            assertThat(match.similarity()).isCloseTo(1.0, within(1e-5));
+        }
+    }
+
+    @Test
+    void returnsMatchesMostSimilarFirst() {
+
+        HnswIndex<Integer> index = new HnswIndex<>(DIMENSIONS, 8, 50);
+        for (int i = 0; i < 300; i++) {
+            index.add(randomUnitVector(), i);
+        }
+
+        List<HnswIndex.Match<Integer>> found = index.search(randomUnitVector(), 10, 50);
+
+        assertThat(found).hasSize(10);
+        assertThat(found).isSortedAccordingTo((a, b) -> Double.compare(b.similarity(), a.similarity()));
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+
+        HnswIndex<Integer> index = new HnswIndex<>(DIMENSIONS, 16, 100);
+
+        assertThat(index.search(randomUnitVector(), 1, 16)).isEmpty();
+        assertThat(index.exactNearest(randomUnitVector())).isNull();
+    }
+
+    @Test
+    void rejectsVectorsOfOtherDimensions() {
+        HnswIndex<Integer> index = new HnswIndex<>(DIMENSIONS, 16, 100);
+        assertThatIllegalArgumentException().isThrownBy(() -> index.add(new float[DIMENSIONS + 1], 0));
+    }
+
+    private float[] randomUnitVector() {
+
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,138 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.sweetie.aichat.model.ConversationTurn;
+import org.sweetie.aichat.webconfig.SessionProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapConversationStoreTest {
+
+    private static final int BUDGET = 100;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OffHeapConversationStore store;
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    @Test
+    void keepsTurnsInOrder() {
+
+        store = store(DataSize.ofKilobytes(64), DataSize.ofKilobytes(4), 100);
+        ConversationTurn first = new ConversationTurn("Hello", "Hi there", 10);
+        ConversationTurn second = new ConversationTurn("Grüße, 世界", "¡Hola!", 20);
+
+        store.append("s1", first, BUDGET);
+        store.append("s1", second, BUDGET);
+
+        assertThat(store.history("s1")).containsExactly(first, second);
+        assertThat(store.history("unknown")).isEmpty();
+    }
+
+    @Test
+    void trimsOldestTurnsToTheTokenBudget() {
+
+        store = store(DataSize.ofKilobytes(64), DataSize.ofKilobytes(4), 100);
+        ConversationTurn first = new ConversationTurn("one", "1", 40);
+        ConversationTurn second = new ConversationTurn("two", "2", 40);
+        ConversationTurn third = new ConversationTurn("three", "3", 40);
+
+        store.append("s1", first, BUDGET);
+        store.append("s1", second, BUDGET);
+        store.append("s1", third, BUDGET);
+
+        assertThat(store.history("s1")).containsExactly(second, third);
+    }
+
+    @Test
+    void dropsSessionWhenOneTurnExceedsTheBudget() {
+
+        store = store(DataSize.ofKilobytes(64), DataSize.ofKilobytes(4), 100);
+        store.append("s1", new ConversationTurn("one", "1", 40), BUDGET);
+
+        store.append("s1", new ConversationTurn("huge", "reply", BUDGET + 1), BUDGET);
+
+        assertThat(store.history("s1")).isEmpty();
+        assertThat(store.sessionCount()).isZero();
+    }
+
+    @Test
+    void dropsConversationLargerThanAPage() {
+
+        store = store(DataSize.ofKilobytes(64), DataSize.ofKilobytes(4), 100);
+        store.append("s1", new ConversationTurn("short", "reply", 10), BUDGET);
+
+        store.append("s1", new ConversationTurn("x".repeat(5000), "reply", 10), BUDGET);
+
+        assertThat(store.history("s1")).isEmpty();
+        assertThat(store.sessionCount()).isZero();
+        assertThat(evictions()).isZero();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSessionWhenMemoryRunsOut() {
+
+        // Two pages; each session takes a whole page
+        store = store(DataSize.ofKilobytes(8), DataSize.ofKilobytes(4), 100);
+        ConversationTurn turn = new ConversationTurn("x".repeat(3000), "reply", 10);
+        store.append("a", turn, BUDGET);
+        store.append("b", turn, BUDGET);
+        store.history("a");
+
+        store.append("c", turn, BUDGET);
+
+        assertThat(store.history("a")).containsExactly(turn);
+        assertThat(store.history("b")).isEmpty();
+        assertThat(store.history("c")).containsExactly(turn);
+        assertThat(evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSessionBeyondMaxSessions() {
+
+        store = store(DataSize.ofKilobytes(64), DataSize.ofKilobytes(4), 2);
+        ConversationTurn turn = new ConversationTurn("hello", "hi", 10);
+        store.append("a", turn, BUDGET);
+        store.append("b", turn, BUDGET);
+        store.history("a");
+
+        store.append("c", turn, BUDGET);
+
+        assertThat(store.sessionCount()).isEqualTo(2);
+        assertThat(store.history("b")).isEmpty();
+        assertThat(store.history("a")).containsExactly(turn);
+    }
+
+    @Test
+    void freesMemoryOfRemovedSessions() {
+
+        store = store(DataSize.ofKilobytes(4), DataSize.ofKilobytes(4), 100);
+        ConversationTurn turn = new ConversationTurn("x".repeat(3000), "reply", 10);
+        store.append("a", turn, BUDGET);
+        store.remove("a");
+
+        store.append("b", turn, BUDGET);
+
+        assertThat(store.history("b")).containsExactly(turn);
+        assertThat(evictions()).isZero();
+    }
+
+    private OffHeapConversationStore store(DataSize capacity, DataSize pageSize, long maxSessions) {
+        SessionProperties properties = new SessionProperties(true, Duration.ofMinutes(30), maxSessions, BUDGET,
+                1024, 8192, Map.of(), SessionProperties.Store.OFF_HEAP, capacity, pageSize);
+        return new OffHeapConversationStore(properties, meterRegistry);
+    }
+
+    private double evictions() {
+        return meterRegistry.counter("chat.sessions.offheap.evictions").count();
+    }
+}
@@ -0,0 +1,148 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.webconfig.ResponseCacheProperties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistentResponseCacheTest {
+
+    private static final Path FIRST_SEGMENT = Path.of("segment-0000000001.dat");
+
+    @TempDir
+    Path directory;
+
+    private PersistentResponseCache cache;
+
+    @AfterEach
+    void close() {
+        cache.close();
+    }
+
+    @Test
+    void servesEntriesAfterReopening() {
+
+        cache = open(DataSize.ofKilobytes(64), 8);
+        CompletionResult result = result("Paris");
+        cache.put(key("capital of France?"), result);
+        cache.close();
+
+        cache = open(DataSize.ofKilobytes(64), 8);
+
+        assertThat(cache.get(key("capital of France?"))).contains(result);
+        assertThat(cache.get(new ResponseCache.Key("capital of France?", LLMType.OPENAI, "other-model"))).isEmpty();
+    }
+
+    @Test
+    void stopsRecoveryAtATornTailAndWritesOverIt() throws IOException {
+
+        cache = open(DataSize.ofKilobytes(64), 8);
+        cache.put(key("first"), result("one"));
+        cache.close();
+
+        // A crash after the length of the next record was written but before its body was
+        int tail = readInt(FIRST_SEGMENT, 0);
+        writeInt(FIRST_SEGMENT, tail, 200);
+
+        cache = open(DataSize.ofKilobytes(64), 8);
+        assertThat(cache.get(key("first"))).contains(result("one"));
+        cache.put(key("second"), result("two"));
+        cache.close();
+
+        cache = open(DataSize.ofKilobytes(64), 8);
+        assertThat(cache.get(key("first"))).contains(result("one"));
+        assertThat(cache.get(key("second"))).contains(result("two"));
+    }
+
+    @Test
+    void rejectsRecordsWithABadChecksum() throws IOException {
+
+        cache = open(DataSize.ofKilobytes(64), 8);
+        cache.put(key("first"), result("one"));
+        cache.put(key("second"), result("two"));
+        cache.close();
+
+        int second = readInt(FIRST_SEGMENT, 0);
+        int secondLength = readInt(FIRST_SEGMENT, second);
+        writeInt(FIRST_SEGMENT, second + secondLength - Integer.BYTES, 0x5EED);
+
+        cache = open(DataSize.ofKilobytes(64), 8);
+
+        assertThat(cache.get(key("first"))).contains(result("one"));
+        assertThat(cache.get(key("second"))).isEmpty();
+    }
+
+    @Test
+    void compactionCarriesLiveEntriesForward() throws IOException {
+
+        // Two records per segment, at most two segments
+        cache = open(DataSize.ofKilobytes(1), 2);
+        cache.put(key("live"), result("x".repeat(300)));
+        for (int i = 0; i < 4; i++) {
+            cache.put(key("churn"), result("y".repeat(300) + i));
+        }
+
+        assertThat(segmentFiles()).hasSize(2).doesNotContain(FIRST_SEGMENT);
+        assertThat(cache.get(key("live"))).contains(result("x".repeat(300)));
+        assertThat(cache.get(key("churn"))).contains(result("y".repeat(300) + 3));
+        cache.close();
+
+        cache = open(DataSize.ofKilobytes(1), 2);
+        assertThat(cache.get(key("live"))).contains(result("x".repeat(300)));
+        assertThat(cache.get(key("churn"))).contains(result("y".repeat(300) + 3));
+    }
+
+    private PersistentResponseCache open(DataSize segmentSize, int maxSegments) {
+        ResponseCacheProperties properties = new ResponseCacheProperties(true, DataSize.ofMegabytes(64), 10_000,
+                Duration.ofMinutes(10),
+                new ResponseCacheProperties.Persistent(true, directory, segmentSize, maxSegments, Duration.ofHours(24)));
+        return new PersistentResponseCache(properties, new SimpleMeterRegistry());
+    }
+
+    private static ResponseCache.Key key(String message) {
+        return new ResponseCache.Key(message, LLMType.OPENAI, "gpt-4o-mini");
+    }
+
+    private static CompletionResult result(String content) {
+        return new CompletionResult(content, LLMType.OPENAI, 12, 34);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(Path::getFileName).toList();
+        }
+    }
+
+    private int readInt(Path segment, long position) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.nativeOrder());
+            channel.read(buffer, position);
+            return buffer.flip().getInt();
+        }
+    }
+
+    private void writeInt(Path segment, long position, int value) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(segment), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.nativeOrder()).putInt(value).flip(),
+                    position);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.sweetie.aichat.service;
+
+import org.junit.jupiter.api.Test;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.service.ProviderCircuitBreaker.State;
+import org.sweetie.aichat.webconfig.CircuitBreakerProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ProviderCircuitBreakerTest {
+
+    private static final LLMType LLM = LLMType.OPENAI;
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+
+        ProviderCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(breaker.tryAcquire(LLM)).isTrue();
+            breaker.onError(LLM, FAST);
+        }
+
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.snapshot(LLM).failureRate()).isEqualTo(-1);
+    }
+
+    @Test
+    void opensOnFailureRateAndRejectsWhileOpen() {
+
+        ProviderCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        succeed(breaker, 2);
+        fail(breaker, 2);
+
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire(LLM)).isFalse();
+        // Other providers are unaffected
+        assertThat(breaker.tryAcquire(LLMType.GEMINI)).isTrue();
+    }
+
+    @Test
+    void closesAfterAllHalfOpenTrialsSucceed() {
+
+        ProviderCircuitBreaker breaker = breaker(Duration.ofMillis(50));
+        fail(breaker, 4);
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.OPEN);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> breaker.tryAcquire(LLM));
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire(LLM)).isTrue();
+        // Both trial slots are taken
+        assertThat(breaker.tryAcquire(LLM)).isFalse();
+
+        breaker.onSuccess(LLM, FAST);
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.HALF_OPEN);
+        breaker.onSuccess(LLM, FAST);
+
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.snapshot(LLM).bufferedCalls()).isZero();
+        assertThat(breaker.tryAcquire(LLM)).isTrue();
+    }
+
+    @Test
+    void reopensOnFailedOrSlowTrial() {
+
+        ProviderCircuitBreaker breaker = breaker(Duration.ofMillis(50));
+        fail(breaker, 4);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> breaker.tryAcquire(LLM));
+        breaker.onError(LLM, FAST);
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.OPEN);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> breaker.tryAcquire(LLM));
+        breaker.onSuccess(LLM, SLOW);
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void releasedTrialFreesItsSlotWithoutCountingAsOutcome() {
+
+        ProviderCircuitBreaker breaker = breaker(Duration.ofMillis(50));
+        fail(breaker, 4);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> breaker.tryAcquire(LLM));
+        assertThat(breaker.tryAcquire(LLM)).isTrue();
+        assertThat(breaker.tryAcquire(LLM)).isFalse();
+
+        breaker.release(LLM);
+
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire(LLM)).isTrue();
+    }
+
+    @Test
+    void opensOnSlowCallRateEvenWhenCallsSucceed() {
+
+        ProviderCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire(LLM)).isTrue();
+            breaker.onSuccess(LLM, i == 0 ? FAST : SLOW);
+        }
+
+        ProviderCircuitBreaker.Snapshot snapshot = breaker.snapshot(LLM);
+        assertThat(snapshot.state()).isEqualTo(State.OPEN);
+        assertThat(snapshot.failureRate()).isZero();
+        assertThat(snapshot.slowCallRate()).isEqualTo(0.75);
+    }
+
+    @Test
+    void slowCallsBelowThresholdKeepBreakerClosed() {
+
+        ProviderCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire(LLM)).isTrue();
+            breaker.onSuccess(LLM, i < 2 ? FAST : SLOW);
+        }
+
+        assertThat(breaker.snapshot(LLM).state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.snapshot(LLM).slowCallRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void fallbackComesFromConfiguration() {
+
+        assertThat(breaker(Duration.ofMinutes(1)).fallbackFor(LLM)).contains(LLMType.GEMINI);
+        assertThat(breaker(Duration.ofMinutes(1)).fallbackFor(LLMType.GEMINI)).isEmpty();
+    }
+
+    /**
+     * Window of 4 calls, opening at 50% failures or 75% calls slower than one second,
+     * with 2 half-open trials.
+     */
+    private static ProviderCircuitBreaker breaker(Duration openDuration) {
+        return new ProviderCircuitBreaker(new CircuitBreakerProperties(
+                true, 4, 4, 0.5, Duration.ofSeconds(1), 0.75, openDuration, 2,
+                Map.of(LLM, LLMType.GEMINI)));
+    }
+
+    private static void succeed(ProviderCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(breaker.tryAcquire(LLM)).isTrue();
+            breaker.onSuccess(LLM, FAST);
+        }
+    }
+
+    private static void fail(ProviderCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(breaker.tryAcquire(LLM)).isTrue();
+            breaker.onError(LLM, FAST);
+        }
+    }
+}
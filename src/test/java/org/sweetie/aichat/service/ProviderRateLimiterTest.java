@@ -0,0 +1,122 @@
+package org.sweetie.aichat.service;
+
+import org.junit.jupiter.api.Test;
+import org.sweetie.aichat.exception.DeadlineExceededException;
+import org.sweetie.aichat.exception.RateLimitExceededException;
+import org.sweetie.aichat.model.LLMType;
+import org.sweetie.aichat.service.ProviderRateLimiter.Reservation;
+import org.sweetie.aichat.webconfig.RateLimitProperties;
+import org.sweetie.aichat.webconfig.RateLimitProperties.Limit;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProviderRateLimiterTest {
+
+    private static final LLMType LLM = LLMType.OPENAI;
+    private static final Deadline NO_RUSH = Deadline.after(Duration.ofMinutes(5));
+
+    @Test
+    void allowsBurstUpToRequestCapacityThenRejectsWithRetryAfter() {
+
+        ProviderRateLimiter limiter = limiter(Duration.ZERO, new Limit(2, 1_000_000));
+
+        limiter.acquire(LLM, 10, NO_RUSH);
+        limiter.acquire(LLM, 10, NO_RUSH);
+
+        assertThatThrownBy(() -> limiter.acquire(LLM, 10, NO_RUSH))
+                .isInstanceOfSatisfying(RateLimitExceededException.class, ex -> {
+                    assertThat(ex.getErrorCode()).isEqualTo("RATE_LIMITED");
+                    // One request refills every 30 seconds
+                    assertThat(ex.getRetryAfter()).isBetween(Duration.ofSeconds(29), Duration.ofSeconds(30));
+                });
+    }
+
+    @Test
+    void reservesPromptPlusExpectedCompletionTokens() {
+
+        ProviderRateLimiter limiter = limiter(Duration.ZERO, new Limit(100, 1_000));
+
+        assertThat(limiter.acquire(LLM, 400, NO_RUSH).tokens()).isEqualTo(500);
+        limiter.acquire(LLM, 400, NO_RUSH);
+
+        assertThatThrownBy(() -> limiter.acquire(LLM, 400, NO_RUSH))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void reconcileReturnsUnusedTokens() {
+
+        ProviderRateLimiter limiter = limiter(Duration.ZERO, new Limit(100, 1_000));
+        Reservation first = limiter.acquire(LLM, 400, NO_RUSH);
+        limiter.acquire(LLM, 400, NO_RUSH);
+
+        // 500 reserved, 100 used
+        limiter.reconcile(first, 50, 50);
+
+        limiter.acquire(LLM, 300, NO_RUSH);
+    }
+
+    @Test
+    void refundReturnsRequestAndTokens() {
+
+        ProviderRateLimiter limiter = limiter(Duration.ZERO, new Limit(1, 1_000_000));
+        Reservation reservation = limiter.acquire(LLM, 10, NO_RUSH);
+
+        limiter.refund(reservation);
+
+        limiter.acquire(LLM, 10, NO_RUSH);
+    }
+
+    @Test
+    void completionEstimateTracksReportedUsage() {
+
+        ProviderRateLimiter limiter = limiter(Duration.ZERO, new Limit(100, 1_000_000));
+
+        limiter.reconcile(limiter.acquire(LLM, 10, NO_RUSH), 10, 1_100);
+
+        // 0.1 * 1100 + 0.9 * 100
+        assertThat(limiter.acquire(LLM, 10, NO_RUSH).tokens()).isEqualTo(10 + 200);
+    }
+
+    @Test
+    void waitsForRefillWithinMaxWait() {
+
+        // 1000 tokens per second
+        ProviderRateLimiter limiter = limiter(Duration.ofSeconds(1), new Limit(1_000, 60_000));
+        limiter.acquire(LLM, 60_000, NO_RUSH);
+
+        long start = System.nanoTime();
+        Reservation reservation = limiter.acquire(LLM, 100, NO_RUSH);
+
+        assertThat(reservation.tokens()).isEqualTo(200);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+    }
+
+    @Test
+    void failsWithDeadlineWhenRefillComesAfterIt() {
+
+        ProviderRateLimiter limiter = limiter(Duration.ofSeconds(1), new Limit(1_000, 60_000));
+        limiter.acquire(LLM, 60_000, NO_RUSH);
+
+        assertThatThrownBy(() -> limiter.acquire(LLM, 100, Deadline.after(Duration.ofMillis(50))))
+                .isInstanceOf(DeadlineExceededException.class);
+    }
+
+    @Test
+    void providersWithoutLimitAreNotTracked() {
+
+        ProviderRateLimiter limiter = limiter(Duration.ZERO, new Limit(1, 1));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.acquire(LLMType.GEMINI, 1_000, NO_RUSH).tokens()).isZero();
+        }
+    }
+
+    private static ProviderRateLimiter limiter(Duration maxWait, Limit limit) {
+        return new ProviderRateLimiter(new RateLimitProperties(true, maxWait, 100, Map.of(LLM, limit)));
+    }
+}
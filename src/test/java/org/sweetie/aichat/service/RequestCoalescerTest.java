@@ -0,0 +1,191 @@
+package org.sweetie.aichat.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.sweetie.aichat.exception.AIServiceException;
+import org.sweetie.aichat.exception.DeadlineExceededException;
+import org.sweetie.aichat.model.LLMType;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class RequestCoalescerTest {
+
+    private static final ResponseCache.Key KEY = new ResponseCache.Key("Hello", LLMType.OPENAI, "gpt-4o");
+    private static final Deadline NO_RUSH = Deadline.after(Duration.ofSeconds(30));
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(true, registry);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneCall() throws Exception {
+
+        List<Future<CompletionResult>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(executor.submit(() -> coalescer.execute(KEY, NO_RUSH, blocking(() -> answer("shared")))));
+        }
+        awaitCoalesced(4);
+        release.countDown();
+
+        for (Future<CompletionResult> result : results) {
+            assertThat(result.get().content()).isEqualTo("shared");
+        }
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void leaderFailureIsSharedWithFollowersAndNotCached() throws Exception {
+
+        Future<CompletionResult> leader = executor.submit(() -> coalescer.execute(KEY, NO_RUSH, blocking(() -> {
+            throw new AIServiceException("AI_SERVICE_UNAVAILABLE", "Upstream failed");
+        })));
+        awaitStarted();
+        Future<CompletionResult> follower = executor.submit(() -> coalescer.execute(KEY, NO_RUSH, this::unexpected));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertFailsWith(leader, "Upstream failed");
+        assertFailsWith(follower, "Upstream failed");
+        // The next request starts a call of its own
+        assertThat(coalescer.execute(KEY, NO_RUSH, () -> answer("fresh")).content()).isEqualTo("fresh");
+    }
+
+    @Test
+    void followersStartOverWhenLeaderIsCancelled() throws Exception {
+
+        Future<CompletionResult> leader = executor.submit(() -> coalescer.execute(KEY, NO_RUSH, blocking(() -> {
+            throw new AIServiceException("REQUEST_CANCELLED", "Request was cancelled");
+        })));
+        awaitStarted();
+        Future<CompletionResult> follower = executor.submit(() -> coalescer.execute(KEY, NO_RUSH, () -> {
+            calls.incrementAndGet();
+            return answer("retried");
+        }));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertFailsWith(leader, "Request was cancelled");
+        assertThat(follower.get().content()).isEqualTo("retried");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void followerGivesUpAtItsOwnDeadline() throws Exception {
+
+        Future<CompletionResult> leader = executor.submit(() ->
+                coalescer.execute(KEY, NO_RUSH, blocking(() -> answer("late"))));
+        awaitStarted();
+
+        assertThatThrownBy(() -> coalescer.execute(KEY, Deadline.after(Duration.ofMillis(50)), this::unexpected))
+                .isInstanceOf(DeadlineExceededException.class);
+
+        release.countDown();
+        assertThat(leader.get().content()).isEqualTo("late");
+    }
+
+    @Test
+    void reactiveFollowerStartsOverWhenLeaderSubscriptionIsCancelled() {
+
+        Disposable leader = coalescer.executeReactive(KEY, () -> Mono.never()).subscribe();
+        Mono<CompletionResult> follower = coalescer.executeReactive(KEY, () -> Mono.just(answer("retried")));
+        AtomicReference<CompletionResult> result = new AtomicReference<>();
+        follower.subscribe(result::set);
+
+        leader.dispose();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> result.get() != null);
+        assertThat(result.get().content()).isEqualTo("retried");
+    }
+
+    @Test
+    void reactiveAndBlockingCallersShareOneCall() throws Exception {
+
+        Future<CompletionResult> blocking = executor.submit(() ->
+                coalescer.execute(KEY, NO_RUSH, blocking(() -> answer("shared"))));
+        awaitStarted();
+
+        CompletableFuture<CompletionResult> reactive = coalescer
+                .executeReactive(KEY, () -> Mono.fromSupplier(this::unexpected))
+                .toFuture();
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertThat(reactive.get().content()).isEqualTo("shared");
+        assertThat(blocking.get().content()).isEqualTo("shared");
+    }
+
+    @Test
+    void disabledCoalescerAlwaysCalls() {
+
+        RequestCoalescer disabled = new RequestCoalescer(false, registry);
+
+        disabled.execute(KEY, NO_RUSH, () -> answer("" + calls.incrementAndGet()));
+        disabled.execute(KEY, NO_RUSH, () -> answer("" + calls.incrementAndGet()));
+
+        assertThat(calls).hasValue(2);
+    }
+
+    /**
+     * Counts the call, then holds it until released.
+     */
+    private Supplier<CompletionResult> blocking(Supplier<CompletionResult> outcome) {
+        return () -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new AIServiceException("REQUEST_CANCELLED", "Request was cancelled", ex);
+            }
+            return outcome.get();
+        };
+    }
+
+    private CompletionResult unexpected() {
+        throw new AssertionError("Follower should not call upstream");
+    }
+
+    private void awaitStarted() {
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 1);
+    }
+
+    private void awaitCoalesced(int followers) {
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> registry.get("chat.requests.coalesced").counter().count() == followers);
+    }
+
+    private static CompletionResult answer(String content) {
+        return new CompletionResult(content, LLMType.OPENAI, 10, 10);
+    }
+
+    private static void assertFailsWith(Future<CompletionResult> future, String message) {
+        assertThatThrownBy(future::get)
+                .isInstanceOf(ExecutionException.class)
+                .cause().isInstanceOf(AIServiceException.class).hasMessage(message);
+    }
+}
@@ -0,0 +1,85 @@
+package org.sweetie.aichat.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SlabAllocatorTest {
+
+    private static final int PAGE = 4096;
+    private static final int MIN_BLOCK = 256;
+
+    @Test
+    void roundsSizesUpToPowerOfTwoBlocks() {
+
+        SlabAllocator allocator = new SlabAllocator(PAGE, PAGE, MIN_BLOCK);
+
+        assertThat(allocator.blockSize(1)).isEqualTo(MIN_BLOCK);
+        assertThat(allocator.blockSize(MIN_BLOCK)).isEqualTo(MIN_BLOCK);
+        assertThat(allocator.blockSize(MIN_BLOCK + 1)).isEqualTo(2 * MIN_BLOCK);
+        assertThat(allocator.blockSize(PAGE)).isEqualTo(PAGE);
+    }
+
+    @Test
+    void rejectsAllocationsLargerThanAPage() {
+
+        SlabAllocator allocator = new SlabAllocator(4L * PAGE, PAGE, MIN_BLOCK);
+
+        assertThat(allocator.allocate(PAGE + 1)).isEqualTo(-1);
+        assertThat(allocator.allocate(PAGE)).isZero();
+    }
+
+    @Test
+    void roundsCapacityDownToWholePages() {
+        assertThat(new SlabAllocator(3L * PAGE + 100, PAGE, MIN_BLOCK).capacity()).isEqualTo(3L * PAGE);
+    }
+
+    @Test
+    void rejectsSizesThatAreNotPowersOfTwo() {
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new SlabAllocator(PAGE, 3000, MIN_BLOCK));
+        assertThatIllegalArgumentException().isThrownBy(() -> new SlabAllocator(PAGE, PAGE, 2 * PAGE));
+    }
+
+    @Test
+    void handsOutDistinctBlocksUntilFull() {
+
+        SlabAllocator allocator = new SlabAllocator(2L * PAGE, PAGE, MIN_BLOCK);
+        Set<Long> offsets = new HashSet<>();
+        for (int i = 0; i < 2 * PAGE / MIN_BLOCK; i++) {
+            long offset = allocator.allocate(100);
+            assertThat(offset).isBetween(0L, 2L * PAGE - MIN_BLOCK);
+            assertThat(offset % MIN_BLOCK).isZero();
+            offsets.add(offset);
+        }
+
+        assertThat(offsets).hasSize(2 * PAGE / MIN_BLOCK);
+        assertThat(allocator.allocate(1)).isEqualTo(-1);
+    }
+
+    @Test
+    void returnsEmptiedPageToOtherSizeClasses() {
+
+        SlabAllocator allocator = new SlabAllocator(PAGE, PAGE, MIN_BLOCK);
+        List<Long> small = new ArrayList<>();
+        for (int i = 0; i < PAGE / MIN_BLOCK; i++) {
+            small.add(allocator.allocate(MIN_BLOCK));
+        }
+        assertThat(allocator.allocate(PAGE)).isEqualTo(-1);
+
+        allocator.free(small.removeLast());
+        // The page is still assigned to small blocks, so a freed block is reused but a large one cannot fit
+        assertThat(allocator.allocate(PAGE)).isEqualTo(-1);
+        assertThat(allocator.allocate(MIN_BLOCK)).isEqualTo(PAGE - MIN_BLOCK);
+
+        allocator.free(PAGE - MIN_BLOCK);
+        small.forEach(allocator::free);
+        assertThat(allocator.allocate(PAGE)).isZero();
+    }
+}